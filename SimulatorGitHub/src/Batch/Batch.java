@@ -0,0 +1,43 @@
+package Batch;
+
+import java.io.IOException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import Model.Simulator;
+
+/**
+ * Main class of headless batch mode - runs simulation without GUI:
+ * reads scenario file, simulates it as fast as CPU allows and writes 
+ * write/read amplification time series to output file
+ * 
+ * usage: Batch.Batch scenarioFile outputFile
+ * @author ibra
+ */
+public class Batch {
+
+  private static final Log LOG = LogFactory.getLog(Batch.class.getName());
+
+  public static void main(final String args[]) throws IOException {
+    if (args.length != 2) {
+      System.err.println("usage: Batch.Batch scenarioFile outputFile");
+      System.exit(1);
+    }
+
+    final Scenario scenario;
+    try {
+      scenario = Scenario.read(args[0]);
+      scenario.prepareForBatch(args[0]);
+    } catch (final IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.exit(1);
+      return;
+    }
+
+    final long start = System.currentTimeMillis();
+    new Simulator(scenario.getConfiguration(), scenario.getCompactionConfigurations(),
+        scenario.getPhases()).start(new TimeSeriesWriter(args[1]));
+    LOG.info("simulation took " + (System.currentTimeMillis() - start) + " ms");
+  }
+}
@@ -0,0 +1,417 @@
+package Batch;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import Model.AbstractConfiguration.GetMethod;
+import Model.Configuration;
+import Model.SimulationExecutor;
+import Model.Simulator;
+import Model.StabilityDetector.Stability;
+import Model.Compactors.CompactionConfigurations.AbstractCompactionConfiguration;
+import Model.Workloads.FileRate;
+import Model.Workloads.Workload;
+import Tools.RandomGenerator;
+
+/**
+ * Main class of capacity planner mode - for each store of scenario finds the highest ingest rate
+ * its compaction algorithm can sustain and writes table with that rate and write/read
+ * amplification at it.
+ *
+ * Each store is simulated alone, ingest rate is set by "Gap between flushes(ms)" and shaped by
+ * daily cycle, bursts and rate file of scenario ("Column family weights" don't apply to store
+ * alone, rate file with columns of stores and flush trace are rejected). Trial at some
+ * rate is sustainable if ingest is not throttled by write stalls and compaction backlog - amount
+ * of storeFiles waiting in compaction queue or being compacted - doesn't grow: its average over
+ * the last quarter of simulation time is not much larger than over the third quarter. When store
+ * can't keep up, backlog grows linearly and the last quarter average is 1.4 times larger. Total
+ * storeFiles count is not used, because it grows with data for some algorithms (level based)
+ * even when compactions keep up.
+ * Simulation time should be long enough for store to reach steady state in first half of it.
+ * Trial ended early as diverged (see StabilityDetector, "Stability window(ms)" in scenario) is
+ * unsustainable, so with stability window set unsustainable rates cost only few windows of
+ * simulated time.
+ *
+ * Search goes over range (0, HDFS write bandwidth * compression ratio] and assumes that rates
+ * below sustainable one are sustainable too. It is bisection generalized to pool of threads: on
+ * each step every store runs several trials at equally spaced rates inside its range at the same
+ * time, and range is narrowed to the gap between the highest sustainable and the lowest
+ * unsustainable of them. Rate 0 in output means that even the lowest tried rate is unsustainable.
+ *
+ * usage: Batch.CapacityPlanner scenarioFile outputFile [threadsCount]
+ * @author ibra
+ */
+public class CapacityPlanner {
+
+  private static final Log LOG = LogFactory.getLog(CapacityPlanner.class.getName());
+
+  /**
+   * amount of search steps - with one trial per step range is narrowed 2^STEPS times
+   */
+  private static final int STEPS = 8;
+
+  /**
+   * compaction backlog of sustainable trial may grow at most this times from the third to the
+   * last quarter of simulation time
+   */
+  private static final double FILES_GROWTH_TOLERANCE = 1.25;
+
+  /**
+   * compaction backlog of sustainable trial may grow additionally by this amount of files, so that
+   * small counts don't fail because of one file
+   */
+  private static final double FILES_GROWTH_SLACK = 2;
+
+  /**
+   * sustainable trial must do at least this part of puts it was given
+   */
+  private static final double MIN_PUTS_RATIO = 0.99;
+
+  /**
+   * bytes per megabyte
+   */
+  private static final double BYTES_PER_MB = 1024 * 1024;
+
+  /**
+   * simulation of one store at one ingest rate, keeps amplification summary and compaction backlog
+   * on each update
+   */
+  private static class Trial extends Summary {
+
+    /**
+     * simulation of this trial
+     */
+    private final Simulator simulator;
+
+    /**
+     * ingest rate(bytes per second)
+     */
+    private final double rate;
+
+    /**
+     * copy of workload of simulation, gives amount of puts simulation is offered
+     */
+    private final Workload workload;
+
+    /**
+     * amount of puts simulation was offered till the last update
+     */
+    private double offeredPuts = 0;
+
+    /**
+     * amount of puts simulation did till the last update
+     */
+    private long putsCount = 0;
+
+    /**
+     * compaction backlog(storeFiles) on each update
+     */
+    private final List<Long> backlogs = new ArrayList<Long>();
+
+    /**
+     * @param simulator - simulation of this trial
+     * @param rate - ingest rate(bytes per second)
+     */
+    private Trial(final Simulator simulator, final double rate) {
+      this.simulator = simulator;
+      this.rate = rate;
+      this.workload = simulator.copyWorkload();
+    }
+
+    @Override
+    public void update(final long time, final List<Double> writeAmplification,
+        final List<Double> readAmplification, final List<Double> spaceAmplification) {
+      this.offeredPuts += this.workload.getOfferedPuts(this.getTime(), time);
+      this.putsCount = this.simulator.getPutsCount();
+      super.update(time, writeAmplification, readAmplification, spaceAmplification);
+      this.backlogs.add(this.simulator.getCompactingFilesCount(0));
+    }
+
+    /**
+     * @return if store kept up with ingest rate of this trial
+     */
+    private boolean isSustainable() {
+      if (this.getStability() == Stability.DIVERGED) {
+        return false;
+      }
+      if (this.getPutsRatio() < CapacityPlanner.MIN_PUTS_RATIO) {
+        return false;
+      }
+      final int count = this.backlogs.size();
+      final double previous = this.getAverageBacklog(count / 2, count * 3 / 4);
+      final double last = this.getAverageBacklog(count * 3 / 4, count);
+      return last <= previous * CapacityPlanner.FILES_GROWTH_TOLERANCE
+          + CapacityPlanner.FILES_GROWTH_SLACK;
+    }
+
+    /**
+     * @return part of puts offered by workload (with its daily cycle, bursts and rate file) till
+     *         the last update that were done, simulation may end early when it converged
+     */
+    private double getPutsRatio() {
+      return this.putsCount / this.offeredPuts;
+    }
+
+    /**
+     * @param from - index of first update
+     * @param to - index after last update
+     * @return average compaction backlog of updates in range, 0 if range is empty
+     */
+    private double getAverageBacklog(final int from, final int to) {
+      if (from >= to) {
+        return 0;
+      }
+      double sum = 0;
+      for (int i = from; i < to; i++) {
+        sum += this.backlogs.get(i);
+      }
+      return sum / (to - from);
+    }
+  }
+
+  /**
+   * search of sustainable ingest rate of one store
+   */
+  private static class Search {
+
+    /**
+     * the highest rate(bytes per second) known to be sustainable, 0 if none is known
+     */
+    private double low = 0;
+
+    /**
+     * the lowest rate(bytes per second) known to be unsustainable
+     */
+    private double high;
+
+    /**
+     * is any rate known to be sustainable
+     */
+    private boolean found = false;
+
+    /**
+     * final write amplification of trial at low rate
+     */
+    private double finalWriteAmplification;
+
+    /**
+     * average write amplification of trial at low rate
+     */
+    private double averageWriteAmplification;
+
+    /**
+     * final read amplification of trial at low rate
+     */
+    private double finalReadAmplification;
+
+    /**
+     * average read amplification of trial at low rate
+     */
+    private double averageReadAmplification;
+
+    /**
+     * trials of current step in order of rates
+     */
+    private final List<Future<Trial>> trials = new ArrayList<Future<Trial>>();
+
+    /**
+     * @param high - rate(bytes per second) that is surely unsustainable
+     */
+    private Search(final double high) {
+      this.high = high;
+    }
+  }
+
+  public static void main(final String args[]) throws IOException, InterruptedException {
+    if (args.length != 2 && args.length != 3) {
+      System.err.println("usage: Batch.CapacityPlanner scenarioFile outputFile [threadsCount]");
+      System.exit(1);
+    }
+    final int threadsCount = args.length == 3 ? Integer.parseInt(args[2]) : Runtime.getRuntime()
+        .availableProcessors();
+
+    final List<String> lines = Scenario.readLines(args[0]);
+    final Scenario scenario;
+    try {
+      scenario = Scenario.parse(args[0], lines);
+      scenario.prepareForBatch(args[0]);
+      CapacityPlanner.check(args[0], scenario.getConfiguration());
+    } catch (final IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.exit(1);
+      return;
+    }
+    final Configuration configuration = scenario.getConfiguration();
+    final List<AbstractCompactionConfiguration> stores = scenario.getCompactionConfigurations();
+    final int trialsPerStep = Math.max(1, threadsCount / stores.size());
+    LOG.info(stores.size() + " stores, " + trialsPerStep + " trials per step, " + threadsCount
+        + " threads");
+
+    final long start = System.currentTimeMillis();
+    final SimulationExecutor executor = new SimulationExecutor(threadsCount);
+    final List<Search> searches = new ArrayList<Search>();
+    for (int i = 0; i < stores.size(); i++) {
+      searches.add(new Search(configuration.getHDFSWriteBytesPerSecond()
+          * configuration.COMPRESSION_RATIO));
+    }
+
+    for (int step = 0; step < CapacityPlanner.STEPS; step++) {
+      for (int i = 0; i < stores.size(); i++) {
+        final Search search = searches.get(i);
+        for (int j = 1; j <= trialsPerStep; j++) {
+          final double rate = search.low + (search.high - search.low) * j / (trialsPerStep + 1);
+          search.trials.add(CapacityPlanner.submit(executor, args[0], lines, stores.get(i), i,
+            rate));
+        }
+      }
+      for (int i = 0; i < stores.size(); i++) {
+        CapacityPlanner.narrow(searches.get(i), i);
+      }
+    }
+    executor.shutdown();
+
+    final PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(args[1])));
+    try {
+      out.println("store\tmax ingest(MB/s)\tGap between flushes(ms)\tfinal WAF\taverage WAF"
+          + "\tfinal RAF\taverage RAF");
+      for (int i = 0; i < stores.size(); i++) {
+        final Search search = searches.get(i);
+        out.print(i + "(" + stores.get(i).getTitle() + ")\t" + search.low
+            / CapacityPlanner.BYTES_PER_MB);
+        if (search.found) {
+          out.print("\t" + CapacityPlanner.getFlushGap(configuration, search.low) + "\t"
+              + search.finalWriteAmplification + "\t" + search.averageWriteAmplification + "\t"
+              + search.finalReadAmplification + "\t" + search.averageReadAmplification);
+        }
+        out.println();
+      }
+    } finally {
+      out.close();
+    }
+    if (out.checkError()) {
+      LOG.error("error writing to " + args[1]);
+    }
+    LOG.info("capacity planning took " + (System.currentTimeMillis() - start) + " ms");
+  }
+
+  /**
+   * checks that workload of scenario can be given to each store alone: its configuration is
+   * correct, it is not flush trace and rate file doesn't have columns of stores
+   * @param fileName - name of scenario file, used in error messages
+   * @param configuration - general configuration of scenario
+   * @throws IllegalArgumentException if workload can't be used by capacity planner
+   */
+  private static void check(final String fileName, final Configuration configuration) {
+    if (!configuration.getFlushTraceFile().isEmpty()) {
+      throw new IllegalArgumentException(fileName + ": capacity planner sets ingest rate, "
+          + "it can't replay 'Flush trace file'");
+    }
+    try {
+      new Workload(configuration, new RandomGenerator(configuration, 0));
+    } catch (final IllegalArgumentException e) {
+      throw new IllegalArgumentException(fileName + ": " + e.getMessage());
+    }
+    final int storesCount = (int) configuration.getCompactionAlgosCount();
+    if (!configuration.getRateFile().isEmpty()
+        && new FileRate(configuration, storesCount).isPerStore()) {
+      throw new IllegalArgumentException(fileName + ": capacity planner simulates each store "
+          + "alone, 'Rate file' must have one multiplier for all stores");
+    }
+  }
+
+  /**
+   * @param configuration - general configuration
+   * @param rate - ingest rate(bytes per second) of one store
+   * @return gap between flushes(ms) that gives this rate
+   */
+  private static long getFlushGap(final Configuration configuration, final double rate) {
+    return Math.max(1, Math.round(configuration.getMemstoreBytesSize() * 1000.0 / rate));
+  }
+
+  /**
+   * submits trial of one store at some ingest rate. Scenario is parsed again for each trial, so
+   * that trials running at the same time don't share any configuration, and fields of compaction
+   * configuration parsed once are copied to it, so that every trial of store simulates the same
+   * policy even if it is random
+   * @param executor - executor of simulations
+   * @param fileName - name of scenario file
+   * @param lines - all lines of scenario file
+   * @param store - compaction configuration of store parsed once for the whole search
+   * @param columnFamily - column family of store in scenario
+   * @param rate - ingest rate(bytes per second)
+   * @return future of trial, done when simulation is finished
+   */
+  private static Future<Trial> submit(final SimulationExecutor executor, final String fileName,
+      final List<String> lines, final AbstractCompactionConfiguration store,
+      final int columnFamily, final double rate) {
+    final Scenario scenario = Scenario.parse(fileName, lines);
+    scenario.prepareForBatch(fileName);
+    final AbstractCompactionConfiguration compactionConfiguration = scenario
+        .getCompactionConfigurations().get(columnFamily);
+    for (final Map.Entry<String, GetMethod> field : store.getGetFields().entrySet()) {
+      compactionConfiguration.set(field.getKey(), field.getValue().get());
+    }
+    final Configuration configuration = scenario.getConfiguration();
+    final long flushGap = CapacityPlanner.getFlushGap(configuration, rate);
+    // store is simulated alone, so weights of stores don't apply to it
+    configuration.setCompactionAlgosCount("1");
+    configuration.setColumnFamilyWeights("");
+    configuration.setFlushGap(Long.toString(flushGap));
+
+    final Simulator simulator = new Simulator(configuration, Collections
+        .singletonList(compactionConfiguration));
+    return executor.submit(simulator, new Trial(simulator, rate));
+  }
+
+  /**
+   * narrows range of search by trials of finished step
+   * @param search - search of one store
+   * @param columnFamily - column family of store, used in log
+   * @throws InterruptedException if interrupted while waiting for trials
+   */
+  private static void narrow(final Search search, final int columnFamily)
+      throws InterruptedException {
+    boolean narrowed = false;
+    for (final Future<Trial> future : search.trials) {
+      final Trial trial;
+      try {
+        trial = future.get();
+      } catch (final ExecutionException e) {
+        LOG.error("trial of store " + columnFamily + " failed: " + e.getCause());
+        continue;
+      }
+      if (narrowed) {
+        continue;
+      }
+      final int count = trial.backlogs.size();
+      LOG.info("store " + columnFamily + ": " + trial.rate / CapacityPlanner.BYTES_PER_MB
+          + " MB/s is " + (trial.isSustainable() ? "sustainable" : "unsustainable") + " (puts "
+          + trial.getPutsRatio() + ", backlog "
+          + trial.getAverageBacklog(count / 2, count * 3 / 4) + " -> "
+          + trial.getAverageBacklog(count * 3 / 4, count) + ")");
+      if (trial.isSustainable()) {
+        search.low = trial.rate;
+        search.found = true;
+        search.finalWriteAmplification = trial.getFinalWriteAmplification(0);
+        search.averageWriteAmplification = trial.getAverageWriteAmplification(0);
+        search.finalReadAmplification = trial.getFinalReadAmplification(0);
+        search.averageReadAmplification = trial.getAverageReadAmplification(0);
+      } else {
+        search.high = trial.rate;
+        narrowed = true;
+      }
+    }
+    search.trials.clear();
+  }
+}
@@ -0,0 +1,275 @@
+package Batch;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import Model.AbstractConfiguration;
+import Model.Configuration;
+import Model.Phase;
+import Model.Compactors.CompactionAlgorithm;
+import Model.Compactors.CompactionConfigurations.AbstractCompactionConfiguration;
+
+/**
+ * Scenario - everything needed to run simulation without GUI, read from scenario file.
+ * 
+ * Scenario file is text file with lines "field title = value", titles are the same as in 
+ * ConfigurationFrame. Lines before first section change general Configuration, each section
+ * "[CompactionAlgorithm]" adds store with that compaction algorithm and lines after it change its
+ * compaction configuration. Empty lines and lines starting with '#' are ignored. Example:
+ * 
+ * <pre>
+ * Simulation time(ms) = 31536000000
+ * Gap between flushes(ms) = 40000
+ * 
+ * [HBaseCompactorWithDefaultConfiguration]
+ * Compaction ratio = 1.2
+ * 
+ * [IbraCompactor]
+ * </pre>
+ * 
+ * Section "[Phase name]" starts phase of simulation (see Model.Phase) and lines after it are
+ * changes of phase: "Duration(ms)", "Major compaction", fields of general Configuration and
+ * fields of compaction configuration of store as "store N: field". Phases run in order of
+ * sections, if "Simulation time(ms)" is not set and each phase has duration, it is their sum.
+ * Example of bulk backfill followed by steady traffic with major compaction between them:
+ * 
+ * <pre>
+ * [Phase backfill]
+ * Duration(ms) = 21600000
+ * Gap between flushes(ms) = 4000
+ * 
+ * [Phase steady]
+ * Duration(ms) = 604800000
+ * Major compaction = true
+ * Gap between flushes(ms) = 40000
+ * store 0: Compaction ratio = 1.5
+ * </pre>
+ * 
+ * "Compaction algos count" is set to amount of store sections.
+ * Each scenario has its own Configuration, so several scenarios can be simulated at the same time
+ * @author ibra
+ */
+public class Scenario {
+
+  private static final Log LOG = LogFactory.getLog(Scenario.class.getName());
+
+  /**
+   * compaction configurations for each store, columnFamily is used as index
+   */
+  private final List<AbstractCompactionConfiguration> compactionConfigurations;
+
+  /**
+   * general configuration of this scenario
+   */
+  private final Configuration configuration;
+
+  /**
+   * phases of simulation in order, empty if scenario has no phases
+   */
+  private final List<Phase> phases;
+
+  /**
+   * creates empty scenario
+   */
+  private Scenario() {
+    this.compactionConfigurations = new ArrayList<AbstractCompactionConfiguration>();
+    this.configuration = new Configuration();
+    this.phases = new ArrayList<Phase>();
+  }
+
+  /**
+   * reads scenario file
+   * @param fileName - name of scenario file
+   * @return scenario read from file
+   * @throws IOException if file can't be read
+   * @throws IllegalArgumentException if file contains incorrect line
+   */
+  public static Scenario read(final String fileName) throws IOException {
+    return Scenario.parse(fileName, Scenario.readLines(fileName));
+  }
+
+  /**
+   * @param fileName - name of text file
+   * @return all lines of file
+   * @throws IOException if file can't be read
+   */
+  static List<String> readLines(final String fileName) throws IOException {
+    final List<String> lines = new ArrayList<String>();
+    final BufferedReader reader = new BufferedReader(new FileReader(fileName));
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lines.add(line);
+      }
+    } finally {
+      reader.close();
+    }
+    return lines;
+  }
+
+  /**
+   * parses lines of scenario file
+   * @param fileName - name of scenario file, used in error messages
+   * @param lines - all lines of scenario file
+   * @return scenario
+   * @throws IllegalArgumentException if there is incorrect line
+   */
+  static Scenario parse(final String fileName, final List<String> lines) {
+    final Scenario scenario = new Scenario();
+    AbstractConfiguration current = scenario.configuration;
+    Phase phase = null;
+    for (int i = 0; i < lines.size(); i++) {
+      final String line = lines.get(i).trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      try {
+        if (Scenario.isPhaseSection(line)) {
+          phase = new Phase(Scenario.getPhaseName(line));
+          scenario.phases.add(phase);
+        } else if (Scenario.isSection(line)) {
+          current = scenario.addStore(line.substring(1, line.length() - 1).trim());
+          phase = null;
+        } else {
+          final int eq = line.indexOf('=');
+          if (eq == -1) {
+            throw new IllegalArgumentException("'=' expected");
+          }
+          final String title = line.substring(0, eq).trim();
+          final String value = line.substring(eq + 1).trim();
+          if (phase != null) {
+            phase.set(title, value);
+          } else {
+            current.set(title, value);
+          }
+        }
+      } catch (final IllegalArgumentException e) {
+        throw new IllegalArgumentException(fileName + ":" + (i + 1) + ": " + e.getMessage());
+      }
+    }
+
+    if (scenario.compactionConfigurations.isEmpty()) {
+      throw new IllegalArgumentException(fileName + ": no stores - add at least one section "
+          + "[CompactionAlgorithm]");
+    }
+    scenario.configuration.set("Compaction algos count",
+      Integer.toString(scenario.compactionConfigurations.size()));
+    if (!scenario.phases.isEmpty()) {
+      scenario.preparePhases(fileName);
+    }
+    return scenario;
+  }
+
+  /**
+   * sets simulation time to total duration of phases if it isn't set and checks phases
+   * @param fileName - name of scenario file, used in error messages
+   * @throws IllegalArgumentException if some phase is incorrect
+   */
+  private void preparePhases(final String fileName) {
+    if (this.configuration.getSimulationTime() <= 0) {
+      long duration = 0;
+      for (final Phase phase : this.phases) {
+        if (phase.getDuration() == 0) {
+          duration = 0;
+          break;
+        }
+        duration += phase.getDuration();
+      }
+      if (duration > 0) {
+        this.configuration.set("Simulation time(ms)", Long.toString(duration));
+      }
+    }
+    try {
+      Phase.check(this.phases, this.configuration, this.compactionConfigurations);
+    } catch (final IllegalArgumentException e) {
+      throw new IllegalArgumentException(fileName + ": " + e.getMessage());
+    }
+  }
+
+  /**
+   * @param line - trimmed line of scenario file
+   * @return if line starts new section "[CompactionAlgorithm]"
+   */
+  static boolean isSection(final String line) {
+    return line.startsWith("[") && line.endsWith("]");
+  }
+
+  /**
+   * @param line - trimmed line of scenario file
+   * @return if line starts new section "[Phase name]"
+   */
+  static boolean isPhaseSection(final String line) {
+    return Scenario.isSection(line) && Scenario.getPhaseName(line) != null;
+  }
+
+  /**
+   * @param line - trimmed section line of scenario file
+   * @return name of phase if section is "[Phase name]", null otherwise
+   */
+  static String getPhaseName(final String line) {
+    final String section = line.substring(1, line.length() - 1).trim();
+    if (!section.startsWith("Phase ")) {
+      return null;
+    }
+    return section.substring("Phase ".length()).trim();
+  }
+
+  /**
+   * prepares scenario to be simulated in batch mode: simulation must be limited in time or by end
+   * of flush trace and is not paced, because nobody watches charts
+   * @param fileName - name of scenario file, used in error messages
+   * @throws IllegalArgumentException if simulation time is not set
+   */
+  public void prepareForBatch(final String fileName) {
+    if (this.configuration.getSimulationTime() <= 0
+        && this.configuration.getFlushTraceFile().isEmpty()) {
+      throw new IllegalArgumentException(fileName
+          + ": 'Simulation time(ms)' must be set in batch mode");
+    }
+    this.configuration.set("xFaster", "0");
+  }
+
+  /**
+   * adds store with compaction algorithm
+   * @param algorithm - name of compaction algorithm (one of CompactionAlgorithm values)
+   * @return compaction configuration of new store
+   */
+  private AbstractCompactionConfiguration addStore(final String algorithm) {
+    final AbstractCompactionConfiguration compactionConfiguration;
+    try {
+      compactionConfiguration = CompactionAlgorithm.valueOf(algorithm).getCompactionConfiguration(
+        this.configuration, this.compactionConfigurations.size());
+    } catch (final IllegalArgumentException e) {
+      throw new IllegalArgumentException("unknown compaction algorithm '" + algorithm + "'");
+    }
+    this.compactionConfigurations.add(compactionConfiguration);
+    return compactionConfiguration;
+  }
+
+  /**
+   * @return general configuration of this scenario
+   */
+  public Configuration getConfiguration() {
+    return this.configuration;
+  }
+
+  /**
+   * @return compaction configurations for each store, columnFamily is used as index
+   */
+  public List<AbstractCompactionConfiguration> getCompactionConfigurations() {
+    return this.compactionConfigurations;
+  }
+
+  /**
+   * @return phases of simulation in order, empty if scenario has no phases
+   */
+  public List<Phase> getPhases() {
+    return this.phases;
+  }
+}
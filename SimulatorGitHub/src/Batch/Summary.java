@@ -0,0 +1,199 @@
+package Batch;
+
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import Model.SimulationObserver;
+import Model.StabilityDetector.Stability;
+
+/**
+ * Summary - keeps only final and time-averaged write/read/space amplification of each store
+ * instead of whole time series. Updates come with constant gap of simulated time, so time average
+ * is average of updates. Undefined values (before first flush WAF is 0/0) are skipped. Also keeps
+ * if simulation was ended early as diverged or converged
+ * @author ibra
+ */
+public class Summary implements SimulationObserver {
+
+  private static final Log LOG = LogFactory.getLog(Summary.class.getName());
+
+  /**
+   * final write amplification of each store, columnFamily is used as index
+   */
+  private double[] finalWriteAmplification;
+
+  /**
+   * final read amplification of each store, columnFamily is used as index
+   */
+  private double[] finalReadAmplification;
+
+  /**
+   * sums of defined write amplification values of each store
+   */
+  private double[] writeAmplificationSum;
+
+  /**
+   * sums of defined read amplification values of each store
+   */
+  private double[] readAmplificationSum;
+
+  /**
+   * counts of defined write amplification values of each store
+   */
+  private long[] writeAmplificationCount;
+
+  /**
+   * counts of defined read amplification values of each store
+   */
+  private long[] readAmplificationCount;
+
+  /**
+   * final space amplification of each store
+   */
+  private double[] finalSpaceAmplification;
+
+  /**
+   * sums of defined space amplification values of each store
+   */
+  private double[] spaceAmplificationSum;
+
+  /**
+   * counts of defined space amplification values of each store
+   */
+  private long[] spaceAmplificationCount;
+
+  /**
+   * simulated time(ms) of the last update
+   */
+  private long time;
+
+  /**
+   * state of simulation when it was finished, null till then
+   */
+  private Stability stability;
+
+  @Override
+  public void started(final List<String> storeTitles) {
+    final int count = storeTitles.size();
+    this.finalWriteAmplification = new double[count];
+    this.finalReadAmplification = new double[count];
+    this.writeAmplificationSum = new double[count];
+    this.readAmplificationSum = new double[count];
+    this.writeAmplificationCount = new long[count];
+    this.readAmplificationCount = new long[count];
+    this.finalSpaceAmplification = new double[count];
+    this.spaceAmplificationSum = new double[count];
+    this.spaceAmplificationCount = new long[count];
+  }
+
+  @Override
+  public void update(final long time, final List<Double> writeAmplification,
+      final List<Double> readAmplification, final List<Double> spaceAmplification) {
+    this.time = time;
+    Summary.add(writeAmplification, this.finalWriteAmplification, this.writeAmplificationSum,
+      this.writeAmplificationCount);
+    Summary.add(readAmplification, this.finalReadAmplification, this.readAmplificationSum,
+      this.readAmplificationCount);
+    Summary.add(spaceAmplification, this.finalSpaceAmplification, this.spaceAmplificationSum,
+      this.spaceAmplificationCount);
+  }
+
+  /**
+   * adds values of amplification factor
+   * @param values - new values of each store
+   * @param last - last values of each store, updated
+   * @param sum - sums of defined values of each store, updated
+   * @param count - counts of defined values of each store, updated
+   */
+  private static void add(final List<Double> values, final double[] last, final double[] sum,
+      final long[] count) {
+    for (int i = 0; i < last.length; i++) {
+      final double value = values.get(i);
+      last[i] = value;
+      if (!Double.isNaN(value) && !Double.isInfinite(value)) {
+        sum[i] += value;
+        count[i]++;
+      }
+    }
+  }
+
+  @Override
+  public void phaseStarted(final long time, final String name) {
+  }
+
+  @Override
+  public void finished(final Stability stability) {
+    this.stability = stability;
+  }
+
+  /**
+   * @return simulated time(ms) of the last update
+   */
+  public long getTime() {
+    return this.time;
+  }
+
+  /**
+   * @return DIVERGED or CONVERGED if simulation was ended early, RUNNING otherwise
+   */
+  public Stability getStability() {
+    return this.stability;
+  }
+
+  /**
+   * @return amount of stores
+   */
+  public int getStoresCount() {
+    return this.finalWriteAmplification.length;
+  }
+
+  /**
+   * @param columnFamily - column family of store
+   * @return write amplification of store at the end of simulation
+   */
+  public double getFinalWriteAmplification(final int columnFamily) {
+    return this.finalWriteAmplification[columnFamily];
+  }
+
+  /**
+   * @param columnFamily - column family of store
+   * @return read amplification of store at the end of simulation
+   */
+  public double getFinalReadAmplification(final int columnFamily) {
+    return this.finalReadAmplification[columnFamily];
+  }
+
+  /**
+   * @param columnFamily - column family of store
+   * @return write amplification of store averaged over simulated time
+   */
+  public double getAverageWriteAmplification(final int columnFamily) {
+    return this.writeAmplificationSum[columnFamily] / this.writeAmplificationCount[columnFamily];
+  }
+
+  /**
+   * @param columnFamily - column family of store
+   * @return read amplification of store averaged over simulated time
+   */
+  public double getAverageReadAmplification(final int columnFamily) {
+    return this.readAmplificationSum[columnFamily] / this.readAmplificationCount[columnFamily];
+  }
+
+  /**
+   * @param columnFamily - column family of store
+   * @return space amplification of store at the end of simulation
+   */
+  public double getFinalSpaceAmplification(final int columnFamily) {
+    return this.finalSpaceAmplification[columnFamily];
+  }
+
+  /**
+   * @param columnFamily - column family of store
+   * @return space amplification of store averaged over simulated time
+   */
+  public double getAverageSpaceAmplification(final int columnFamily) {
+    return this.spaceAmplificationSum[columnFamily] / this.spaceAmplificationCount[columnFamily];
+  }
+}
@@ -0,0 +1,301 @@
+package Batch;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import Model.SimulationExecutor;
+import Model.Simulator;
+import Model.Compactors.CompactionConfigurations.AbstractCompactionConfiguration;
+
+/**
+ * Main class of parameter sweep mode - runs simulation of scenario for every combination of
+ * parameter values and writes table with final and time-averaged write/read/space amplification of
+ * each store per combination.
+ *
+ * Sweep file is scenario file (see Scenario) where any value can be replaced by grid:
+ *
+ * <pre>
+ * Simulation time(ms) = 864000000
+ * Random seed = {1, 2, 3}
+ *
+ * [HBaseCompactorWithDefaultConfiguration]
+ * Compaction ratio = {1.0..2.0:0.2}
+ * Compaction min size(files) = {2..5}
+ * </pre>
+ *
+ * "{a, b, c}" is list of values, "{from..to:step}" is range of numbers (step is 1 by default).
+ * Every combination of values (point) is independent simulation; points are simulated in pool of
+ * threads (SimulationExecutor) and each is created only when a thread takes it, rows are written
+ * in order of points. Each row says if point ended early because it diverged or converged (see
+ * StabilityDetector) and simulated time it reached.
+ *
+ * usage: Batch.Sweep sweepFile outputFile [threadsCount]
+ * @author ibra
+ */
+public class Sweep {
+
+  private static final Log LOG = LogFactory.getLog(Sweep.class.getName());
+
+  /**
+   * swept parameter - line of sweep file with grid instead of value
+   */
+  private static class Parameter {
+
+    /**
+     * index of line in sweep file
+     */
+    private final int lineIndex;
+
+    /**
+     * field title, prefixed by store for compaction configuration fields and by phase for
+     * fields of phases
+     */
+    private final String title;
+
+    /**
+     * field title as it is in sweep file
+     */
+    private final String field;
+
+    /**
+     * all values of grid
+     */
+    private final List<String> values;
+
+    public Parameter(final int lineIndex, final String title, final String field,
+        final List<String> values) {
+      this.lineIndex = lineIndex;
+      this.title = title;
+      this.field = field;
+      this.values = values;
+    }
+  }
+
+  public static void main(final String args[]) throws IOException, InterruptedException {
+    if (args.length != 2 && args.length != 3) {
+      System.err.println("usage: Batch.Sweep sweepFile outputFile [threadsCount]");
+      System.exit(1);
+    }
+    final int threadsCount = args.length == 3 ? Integer.parseInt(args[2]) : Runtime.getRuntime()
+        .availableProcessors();
+
+    final List<String> lines = Scenario.readLines(args[0]);
+    final List<Parameter> parameters;
+    final List<Scenario> scenarios;
+    try {
+      parameters = Sweep.findParameters(args[0], lines);
+      scenarios = Sweep.getScenarios(args[0], lines, parameters);
+    } catch (final IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.exit(1);
+      return;
+    }
+    LOG.info(scenarios.size() + " points, " + threadsCount + " threads");
+
+    final long start = System.currentTimeMillis();
+    final SimulationExecutor executor = new SimulationExecutor(threadsCount);
+    final List<Future<Summary>> results = new ArrayList<Future<Summary>>();
+    for (final Scenario scenario : scenarios) {
+      results.add(executor.submit(new SimulationExecutor.SimulatorFactory() {
+        @Override
+        public Simulator create() {
+          return new Simulator(scenario.getConfiguration(), scenario.getCompactionConfigurations(),
+              scenario.getPhases());
+        }
+      }, new Summary()));
+    }
+    executor.shutdown();
+
+    final PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(args[1])));
+    try {
+      Sweep.printHeader(out, parameters, scenarios.get(0));
+      final int[] indexes = new int[parameters.size()];
+      for (int point = 0; point < results.size(); point++) {
+        out.print(point);
+        for (int i = 0; i < parameters.size(); i++) {
+          out.print("\t" + parameters.get(i).values.get(indexes[i]));
+        }
+        out.print("\t" + scenarios.get(point).getConfiguration().getRandomSeed());
+        try {
+          Sweep.printSummary(out, results.get(point).get());
+        } catch (final ExecutionException e) {
+          LOG.error("point " + point + " failed: " + e.getCause());
+        }
+        out.println();
+        out.flush();
+        Sweep.next(indexes, parameters);
+      }
+    } finally {
+      out.close();
+    }
+    if (out.checkError()) {
+      LOG.error("error writing to " + args[1]);
+    }
+    LOG.info("sweep took " + (System.currentTimeMillis() - start) + " ms");
+  }
+
+  /**
+   * @param fileName - name of sweep file, used in error messages
+   * @param lines - all lines of sweep file
+   * @return swept parameters in order of lines
+   * @throws IllegalArgumentException if some grid is incorrect
+   */
+  private static List<Parameter> findParameters(final String fileName, final List<String> lines) {
+    final List<Parameter> res = new ArrayList<Parameter>();
+    String store = "";
+    int storesCount = 0;
+    for (int i = 0; i < lines.size(); i++) {
+      final String line = lines.get(i).trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      if (Scenario.isPhaseSection(line)) {
+        store = "phase " + Scenario.getPhaseName(line) + " ";
+        continue;
+      }
+      if (Scenario.isSection(line)) {
+        store = (storesCount++) + "(" + line.substring(1, line.length() - 1).trim() + ") ";
+        continue;
+      }
+      final int eq = line.indexOf('=');
+      if (eq == -1) {
+        continue;
+      }
+      final String field = line.substring(0, eq).trim();
+      final String value = line.substring(eq + 1).trim();
+      if (value.startsWith("{") && value.endsWith("}")) {
+        try {
+          res.add(new Parameter(i, store + field, field, Sweep.getValues(value.substring(1,
+            value.length() - 1))));
+        } catch (final IllegalArgumentException e) {
+          throw new IllegalArgumentException(fileName + ":" + (i + 1) + ": " + e.getMessage());
+        }
+      }
+    }
+    return res;
+  }
+
+  /**
+   * @param grid - grid without braces: "a, b, c" or "from..to:step"
+   * @return all values of grid
+   * @throws IllegalArgumentException if grid is incorrect
+   */
+  private static List<String> getValues(final String grid) {
+    final List<String> res = new ArrayList<String>();
+    final int dots = grid.indexOf("..");
+    if (dots == -1) {
+      for (final String value : grid.split(",")) {
+        res.add(value.trim());
+      }
+      return res;
+    }
+
+    final int colon = grid.indexOf(':', dots);
+    final BigDecimal from;
+    final BigDecimal to;
+    final BigDecimal step;
+    try {
+      from = new BigDecimal(grid.substring(0, dots).trim());
+      to = new BigDecimal(grid.substring(dots + 2, colon == -1 ? grid.length() : colon).trim());
+      step = colon == -1 ? BigDecimal.ONE : new BigDecimal(grid.substring(colon + 1).trim());
+    } catch (final NumberFormatException e) {
+      throw new IllegalArgumentException("incorrect range '{" + grid + "}'");
+    }
+    if (step.signum() <= 0 || from.compareTo(to) > 0) {
+      throw new IllegalArgumentException("empty range '{" + grid + "}'");
+    }
+    for (BigDecimal value = from; value.compareTo(to) <= 0; value = value.add(step)) {
+      res.add(value.toPlainString());
+    }
+    return res;
+  }
+
+  /**
+   * creates scenario for each point of sweep
+   * @param fileName - name of sweep file, used in error messages
+   * @param lines - all lines of sweep file
+   * @param parameters - swept parameters
+   * @return scenarios in order of points: the last parameter changes fastest
+   * @throws IllegalArgumentException if some point is incorrect scenario
+   */
+  private static List<Scenario> getScenarios(final String fileName, final List<String> lines,
+      final List<Parameter> parameters) {
+    final List<Scenario> res = new ArrayList<Scenario>();
+    final int[] indexes = new int[parameters.size()];
+    final List<String> pointLines = new ArrayList<String>(lines);
+    do {
+      for (int i = 0; i < parameters.size(); i++) {
+        final Parameter parameter = parameters.get(i);
+        pointLines.set(parameter.lineIndex, parameter.field + " = "
+            + parameter.values.get(indexes[i]));
+      }
+      final Scenario scenario = Scenario.parse(fileName, pointLines);
+      scenario.prepareForBatch(fileName);
+      res.add(scenario);
+    } while (Sweep.next(indexes, parameters));
+    return res;
+  }
+
+  /**
+   * moves to the next point of sweep
+   * @param indexes - indexes of values of each parameter, updated
+   * @param parameters - swept parameters
+   * @return false if all points are passed (indexes are back to zeros)
+   */
+  private static boolean next(final int[] indexes, final List<Parameter> parameters) {
+    for (int i = indexes.length - 1; i >= 0; i--) {
+      if (++indexes[i] < parameters.get(i).values.size()) {
+        return true;
+      }
+      indexes[i] = 0;
+    }
+    return false;
+  }
+
+  /**
+   * prints header of result table
+   * @param out - output
+   * @param parameters - swept parameters
+   * @param scenario - any point of sweep, to get titles of stores
+   */
+  private static void printHeader(final PrintWriter out, final List<Parameter> parameters,
+      final Scenario scenario) {
+    out.print("point");
+    for (final Parameter parameter : parameters) {
+      out.print("\t" + parameter.title);
+    }
+    out.print("\trandom seed\tstability\tsimulated time(ms)");
+    final List<AbstractCompactionConfiguration> stores = scenario.getCompactionConfigurations();
+    for (int i = 0; i < stores.size(); i++) {
+      final String store = i + "(" + stores.get(i).getTitle() + ")";
+      out.print("\tfinal WAF " + store + "\taverage WAF " + store + "\tfinal RAF " + store
+          + "\taverage RAF " + store + "\tfinal SAF " + store + "\taverage SAF " + store);
+    }
+    out.println();
+  }
+
+  /**
+   * prints results of one point
+   * @param out - output
+   * @param summary - results of simulation
+   */
+  private static void printSummary(final PrintWriter out, final Summary summary) {
+    out.print("\t" + summary.getStability() + "\t" + summary.getTime());
+    for (int i = 0; i < summary.getStoresCount(); i++) {
+      out.print("\t" + summary.getFinalWriteAmplification(i) + "\t"
+          + summary.getAverageWriteAmplification(i) + "\t" + summary.getFinalReadAmplification(i)
+          + "\t" + summary.getAverageReadAmplification(i) + "\t"
+          + summary.getFinalSpaceAmplification(i) + "\t" + summary.getAverageSpaceAmplification(i));
+    }
+  }
+}
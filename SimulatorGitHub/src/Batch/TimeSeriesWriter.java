@@ -0,0 +1,121 @@
+package Batch;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import Model.SimulationObserver;
+import Model.StabilityDetector.Stability;
+
+/**
+ * TimeSeriesWriter - writes results of simulation to tab-separated file:
+ * one line per update - simulated time(ms), write amplification of each store, 
+ * read amplification of each store, space amplification of each store and, if simulation has
+ * phases, name of current phase
+ * @author ibra
+ */
+public class TimeSeriesWriter implements SimulationObserver {
+
+  private static final Log LOG = LogFactory.getLog(TimeSeriesWriter.class.getName());
+
+  /**
+   * output file writer
+   */
+  private final PrintWriter out;
+
+  /**
+   * name of output file
+   */
+  private final String fileName;
+
+  /**
+   * titles of stores, header is written before the first line, when it is known if simulation
+   * has phases
+   */
+  private List<String> storeTitles;
+
+  /**
+   * name of current phase, null if simulation has no phases
+   */
+  private String phase;
+
+  /**
+   * creates output file
+   * @param fileName - name of output file
+   * @throws IOException if file can't be created
+   */
+  public TimeSeriesWriter(final String fileName) throws IOException {
+    this.fileName = fileName;
+    this.out = new PrintWriter(new BufferedWriter(new FileWriter(fileName)));
+  }
+
+  @Override
+  public void started(final List<String> storeTitles) {
+    this.storeTitles = storeTitles;
+    this.phase = null;
+  }
+
+  /**
+   * writes header of file if it isn't written yet
+   */
+  private void writeHeader() {
+    if (this.storeTitles == null) {
+      return;
+    }
+    final List<String> storeTitles = this.storeTitles;
+    this.storeTitles = null;
+    this.out.print("time(ms)");
+    for (final String title : storeTitles) {
+      this.out.print("\tWAF " + title);
+    }
+    for (final String title : storeTitles) {
+      this.out.print("\tRAF " + title);
+    }
+    for (final String title : storeTitles) {
+      this.out.print("\tSAF " + title);
+    }
+    if (this.phase != null) {
+      this.out.print("\tphase");
+    }
+    this.out.println();
+  }
+
+  @Override
+  public void phaseStarted(final long time, final String name) {
+    this.phase = name;
+  }
+
+  @Override
+  public void update(final long time, final List<Double> writeAmplification,
+      final List<Double> readAmplification, final List<Double> spaceAmplification) {
+    this.writeHeader();
+    this.out.print(time);
+    for (final Double value : writeAmplification) {
+      this.out.print("\t" + value);
+    }
+    for (final Double value : readAmplification) {
+      this.out.print("\t" + value);
+    }
+    for (final Double value : spaceAmplification) {
+      this.out.print("\t" + value);
+    }
+    if (this.phase != null) {
+      this.out.print("\t" + this.phase);
+    }
+    this.out.println();
+  }
+
+  @Override
+  public void finished(final Stability stability) {
+    this.writeHeader();
+    this.out.close();
+    if (this.out.checkError()) {
+      LOG.error("error writing to " + this.fileName);
+    }
+  }
+}
@@ -1,9 +1,6 @@
 package GUI.Charts;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -13,7 +10,8 @@ import Model.Configuration;
 
 /**
  * AdvancedTimeChart - TimeChart, that plots average graphs.
- * Current value of average graph is average value of last avgCount values given to update method
+ * Current value of average graph is average value of last avgCount values given to update method.
+ * Last values are kept in ring buffer with their running sum, so update costs O(1) per graph
  * 
  * This class is used for plotting Read Amplification Factor(RAF) graphs.
  * We use this class for plotting RAF because RAF value changes very frequently and 
@@ -25,17 +23,38 @@ public class AdvancedTimeChart extends TimeChart {
   private static final Log LOG = LogFactory.getLog(AdvancedTimeChart.class.getName());
 
   /**
-   * stat contains last avgCount values of each original graph so Queue of doubles is last avgCount values
+   * stat contains last avgCount values of each original graph, ring buffer of each graph starts at
+   * statStart
    */
-  private final List<Queue<Double>> stat;
+  private final double[][] stat;
+
+  /**
+   * index of the oldest value in ring buffers
+   */
+  private int statStart;
+
+  /**
+   * amount of values in ring buffers
+   */
+  private int statSize;
+
+  /**
+   * sum of defined values in ring buffer of each graph
+   */
+  private final double[] statSums;
+
+  /**
+   * amount of undefined values (NaN) in ring buffer of each graph, average is undefined while there
+   * is any
+   */
+  private final int[] statNaNs;
 
   /**
    * avgCount - amount of values we store for each graph to calculate average graph
    * configured in such way, that chart show average value for last 100 days
    */
   private long getAvgCount() {
-    return 100L * Configuration.MS_PER_DAY
-        / (Configuration.INSTANCE.CHARTS_UPDATE_GAP * Configuration.INSTANCE.getxFaster());
+    return 100L * Configuration.MS_PER_DAY / Configuration.INSTANCE.CHARTS_UPDATE_GAP;
   }
 
   /**
@@ -49,10 +68,11 @@ public class AdvancedTimeChart extends TimeChart {
       final String... titles) {
     super(mainTitle, xTitle, yTitle, titles);
 
-    this.stat = new ArrayList<Queue<Double>>();
-    for (String title : titles) {
-      this.stat.add(new LinkedList<Double>());
-    }
+    this.stat = new double[titles.length][(int) this.getAvgCount()];
+    this.statStart = 0;
+    this.statSize = 0;
+    this.statSums = new double[titles.length];
+    this.statNaNs = new int[titles.length];
   }
 
   /**
@@ -61,30 +81,47 @@ public class AdvancedTimeChart extends TimeChart {
    * @param values - contains new values for graphs value
    */
   public void update(final long time, final List<Double> values) {
+    // if we already have avgCount values, the oldest one is replaced by new one
+    final int capacity = this.stat.length == 0 ? 0 : this.stat[0].length;
+    final boolean full = this.statSize == capacity;
+    final int index = (this.statStart + this.statSize) % capacity;
+
     // update info in stat
-    // and add points to original graphs and average graphs
+    // and add points to average graphs
     for (int i = 0; i < values.size(); i++) {
-      // add point to original graph
       final double value = values.get(i);
-
-      // if we already have at least avgCount of them
-      // remove old value from stat
-      while (this.stat.get(i).size() >= this.getAvgCount()) {
-        this.stat.get(i).poll();
+      if (full) {
+        this.remove(i, this.stat[i][index]);
       }
-
-      // add new value to stat
-      this.stat.get(i).add(value);
-
-      // calculate average value
-      double avgValue = 0;
-      for (Double v : this.stat.get(i)) {
-        avgValue += v;
+      this.stat[i][index] = value;
+      if (Double.isNaN(value)) {
+        this.statNaNs[i]++;
+      } else {
+        this.statSums[i] += value;
       }
-      avgValue /= this.stat.get(i).size();
 
       // add point to average graph
-      this.addPointToSeries(i, time, avgValue);
+      final int size = full ? capacity : this.statSize + 1;
+      this.addPointToSeries(i, time, this.statNaNs[i] > 0 ? Double.NaN : this.statSums[i] / size);
+    }
+
+    if (full) {
+      this.statStart = (this.statStart + 1) % capacity;
+    } else {
+      this.statSize++;
+    }
+  }
+
+  /**
+   * removes old value from running sum of graph
+   * @param graphId - index of graph
+   * @param value - removed value
+   */
+  private void remove(final int graphId, final double value) {
+    if (Double.isNaN(value)) {
+      this.statNaNs[graphId]--;
+    } else {
+      this.statSums[graphId] -= value;
     }
   }
 
@@ -0,0 +1,66 @@
+package GUI.Charts;
+
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import Model.SimulationObserver;
+import Model.StabilityDetector.Stability;
+
+/**
+ * AmplificationCharts - shows results of simulation on charts:
+ * write amplification and space amplification on SimpleTimeCharts, read amplification on
+ * AdvancedTimeChart
+ * @author ibra
+ */
+public class AmplificationCharts implements SimulationObserver {
+
+  private static final Log LOG = LogFactory.getLog(AmplificationCharts.class.getName());
+
+  /**
+   * Write amplification graph (WAF) - a significant factor in write performance WAF = bytes written
+   * to disk during compactions / bytes written to disk during flushes
+   */
+  private SimpleTimeChart writeAmplificationsTimeChart;
+
+  /**
+   * Read amplification graph (RAF) - a significant factor in read performance WAF = amount of
+   * storeFiles RAF is number of files you need to check to read some KeyValue (worst case is just
+   * amount of StoreFiles)
+   */
+  private AdvancedTimeChart readAmplificationTimeChart;
+
+  /**
+   * Space amplification graph (SAF) - a significant factor in disk usage SAF = bytes on disk
+   * (including storeFiles being compacted and outputs of running compactions) / bytes of not
+   * expired KeyValues
+   */
+  private SimpleTimeChart spaceAmplificationTimeChart;
+
+  @Override
+  public void started(final List<String> storeTitles) {
+    this.readAmplificationTimeChart = AdvancedTimeChart.go("Stores read amplification", "Time",
+      "Stores read amplification", storeTitles);
+    this.writeAmplificationsTimeChart = SimpleTimeChart.go("Stores write amplification", "Time",
+      "Write amplification", storeTitles);
+    this.spaceAmplificationTimeChart = SimpleTimeChart.go("Stores space amplification", "Time",
+      "Space amplification", storeTitles);
+  }
+
+  @Override
+  public void update(final long time, final List<Double> writeAmplification,
+      final List<Double> readAmplification, final List<Double> spaceAmplification) {
+    this.writeAmplificationsTimeChart.update(time, writeAmplification);
+    this.readAmplificationTimeChart.update(time, readAmplification);
+    this.spaceAmplificationTimeChart.update(time, spaceAmplification);
+  }
+
+  @Override
+  public void phaseStarted(final long time, final String name) {
+  }
+
+  @Override
+  public void finished(final Stability stability) {
+  }
+}
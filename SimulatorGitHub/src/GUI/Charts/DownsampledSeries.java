@@ -0,0 +1,156 @@
+package GUI.Charts;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * DownsampledSeries - points of one graph kept in bounded memory, no matter how long simulation
+ * goes.
+ *
+ * Points are aggregated into buckets of equal amount of points, each bucket keeps its minimal and
+ * maximal value with their times. When all maxBuckets buckets are full, adjacent buckets are merged
+ * pairwise and bucket size doubles, so resolution of whole graph halves and memory stays the same.
+ * Bucket is drawn as its minimum and maximum in order of their times, so spikes are not lost by
+ * downsampling. Undefined values (NaN) are skipped.
+ *
+ * Not thread-safe: TimeChart guards it
+ * @author ibra
+ */
+class DownsampledSeries {
+
+  private static final Log LOG = LogFactory.getLog(DownsampledSeries.class.getName());
+
+  /**
+   * maximal amount of buckets, even
+   */
+  private final int maxBuckets;
+
+  /**
+   * time of minimal value of each bucket, [0, bucketsCount) are used
+   */
+  private final long[] minTimes;
+
+  /**
+   * minimal value of each bucket
+   */
+  private final double[] minValues;
+
+  /**
+   * time of maximal value of each bucket
+   */
+  private final long[] maxTimes;
+
+  /**
+   * maximal value of each bucket
+   */
+  private final double[] maxValues;
+
+  /**
+   * amount of used buckets
+   */
+  private int bucketsCount;
+
+  /**
+   * amount of points in full bucket
+   */
+  private long bucketSize;
+
+  /**
+   * amount of points in the last bucket
+   */
+  private long lastBucketSize;
+
+  /**
+   * @param maxPoints - maximal amount of points drawn, at least 2
+   */
+  DownsampledSeries(final int maxPoints) {
+    this.maxBuckets = Math.max(2, maxPoints / 2 / 2 * 2);
+    this.minTimes = new long[this.maxBuckets];
+    this.minValues = new double[this.maxBuckets];
+    this.maxTimes = new long[this.maxBuckets];
+    this.maxValues = new double[this.maxBuckets];
+    this.bucketsCount = 0;
+    this.bucketSize = 1;
+    this.lastBucketSize = 0;
+  }
+
+  /**
+   * adds point, times of points must increase
+   * @param time - x-axis value
+   * @param value - y-axis value
+   */
+  void add(final long time, final double value) {
+    if (Double.isNaN(value)) {
+      return;
+    }
+    if (this.bucketsCount == 0 || this.lastBucketSize == this.bucketSize) {
+      if (this.bucketsCount == this.maxBuckets) {
+        this.mergeBuckets();
+      }
+      this.minTimes[this.bucketsCount] = time;
+      this.minValues[this.bucketsCount] = value;
+      this.maxTimes[this.bucketsCount] = time;
+      this.maxValues[this.bucketsCount] = value;
+      this.bucketsCount++;
+      this.lastBucketSize = 1;
+      return;
+    }
+
+    final int last = this.bucketsCount - 1;
+    if (value < this.minValues[last]) {
+      this.minTimes[last] = time;
+      this.minValues[last] = value;
+    }
+    if (value > this.maxValues[last]) {
+      this.maxTimes[last] = time;
+      this.maxValues[last] = value;
+    }
+    this.lastBucketSize++;
+  }
+
+  /**
+   * merges adjacent full buckets pairwise, bucket size doubles
+   */
+  private void mergeBuckets() {
+    for (int i = 0; i < this.bucketsCount / 2; i++) {
+      final int first = 2 * i;
+      final int second = first + 1;
+      final boolean secondMin = this.minValues[second] < this.minValues[first];
+      final boolean secondMax = this.maxValues[second] > this.maxValues[first];
+      this.minTimes[i] = secondMin ? this.minTimes[second] : this.minTimes[first];
+      this.minValues[i] = secondMin ? this.minValues[second] : this.minValues[first];
+      this.maxTimes[i] = secondMax ? this.maxTimes[second] : this.maxTimes[first];
+      this.maxValues[i] = secondMax ? this.maxValues[second] : this.maxValues[first];
+    }
+    this.bucketsCount /= 2;
+    this.bucketSize *= 2;
+    this.lastBucketSize = this.bucketSize;
+  }
+
+  /**
+   * @return maximal amount of points getPoints returns
+   */
+  int getMaxPointsCount() {
+    return 2 * this.maxBuckets;
+  }
+
+  /**
+   * copies points to be drawn in order of time
+   * @param times - x-axis values, at least getMaxPointsCount() long
+   * @param values - y-axis values, at least getMaxPointsCount() long
+   * @return amount of copied points
+   */
+  int getPoints(final long[] times, final double[] values) {
+    int count = 0;
+    for (int i = 0; i < this.bucketsCount; i++) {
+      final boolean minFirst = this.minTimes[i] <= this.maxTimes[i];
+      times[count] = minFirst ? this.minTimes[i] : this.maxTimes[i];
+      values[count++] = minFirst ? this.minValues[i] : this.maxValues[i];
+      if (this.minTimes[i] != this.maxTimes[i]) {
+        times[count] = minFirst ? this.maxTimes[i] : this.minTimes[i];
+        values[count++] = minFirst ? this.maxValues[i] : this.minValues[i];
+      }
+    }
+    return count;
+  }
+}
@@ -8,6 +8,7 @@ import java.util.Date;
 import java.util.List;
 
 import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -31,6 +32,11 @@ import Model.Configuration;
  * 
  * Here you can see methods just for initializing TimeChart object and method addPoint to add point to some graph
  * 
+ * Points are added by simulation thread to DownsampledSeries of each graph, so memory and
+ * repaint time are bounded by "Chart max points" no matter how long simulation goes. Graphs of
+ * JFreeChart are rebuilt from them on event dispatch thread with notifications suspended - one
+ * rebuild for all points added since the previous one, so fast simulation doesn't flood EDT
+ * 
  * Frame for showing charts
  * @author ibra
  */
@@ -43,6 +49,26 @@ public abstract class TimeChart extends JFrame {
    */
   private final List<TimeSeries> timeSeries;
 
+  /**
+   * downsampled points of each graph, guarded by itself
+   */
+  private final List<DownsampledSeries> data;
+
+  /**
+   * is rebuild of graphs already scheduled on EDT, guarded by data
+   */
+  private boolean refreshScheduled;
+
+  /**
+   * rebuilds graphs from downsampled points
+   */
+  private final Runnable refresh = new Runnable() {
+    @Override
+    public void run() {
+      TimeChart.this.refresh();
+    }
+  };
+
   /**
    * main chart object
    */
@@ -54,14 +80,9 @@ public abstract class TimeChart extends JFrame {
   private final ChartPanel chartPanel;
 
   /**
-   * previous x-axis value given to update method
-   */
-  private long prevTime;
-
-  /**
-   * current value of x-axis, calculated with Configuration.TIMING
+   * x-axis value of simulated time 0
    */
-  private long curTime;
+  private static final long START_TIME = 8 * 60 * 60 * 1000;
 
   /**
    * creates TimeChart object
@@ -76,13 +97,14 @@ public abstract class TimeChart extends JFrame {
 
     this.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
 
-    this.prevTime = System.currentTimeMillis();
-    this.curTime = 8 * 60 * 60 * 1000;
-
     this.timeSeries = new ArrayList<TimeSeries>();
+    this.data = new ArrayList<DownsampledSeries>();
+    this.refreshScheduled = false;
 
+    final int maxPoints = (int) Configuration.INSTANCE.getChartMaxPoints();
     for (final String title : titles) {
       this.timeSeries.add(new TimeSeries(title));
+      this.data.add(new DownsampledSeries(maxPoints));
     }
 
     this.chart = createChart(mainTitle, xTitle, yTitle, this.timeSeries);
@@ -92,7 +114,7 @@ public abstract class TimeChart extends JFrame {
     this.setContentPane(this.chartPanel);
 
     for (final TimeSeries s : this.timeSeries) {
-      s.add(new Millisecond(new Date(this.curTime)), 0.0);
+      s.add(new Millisecond(new Date(START_TIME)), 0.0);
     }
   }
 
@@ -173,12 +195,49 @@ public abstract class TimeChart extends JFrame {
   /**
    * add point to graph
    * @param graphId - id of graph we are adding point to
-   * @param time - x-axis value
+   * @param time - x-axis value - simulated time(ms)
    * @param value - y-axis value
    */
   protected void addPointToSeries(final int graphId, final long time, final double value) {
-    this.curTime += (time - this.prevTime) * Configuration.INSTANCE.getxFaster();
-    this.prevTime = time;
-    this.timeSeries.get(graphId).add(new Millisecond(new Date(this.curTime)), value);
+    synchronized (this.data) {
+      this.data.get(graphId).add(time, value);
+      if (!this.refreshScheduled) {
+        this.refreshScheduled = true;
+        SwingUtilities.invokeLater(this.refresh);
+      }
+    }
+  }
+
+  /**
+   * rebuilds graphs from downsampled points, runs on EDT. Points are copied under lock, graphs are
+   * filled without it, each graph notifies chart once
+   */
+  private void refresh() {
+    final List<long[]> times = new ArrayList<long[]>();
+    final List<double[]> values = new ArrayList<double[]>();
+    final int[] counts = new int[this.data.size()];
+    synchronized (this.data) {
+      for (int i = 0; i < this.data.size(); i++) {
+        final DownsampledSeries series = this.data.get(i);
+        times.add(new long[series.getMaxPointsCount()]);
+        values.add(new double[series.getMaxPointsCount()]);
+        counts[i] = series.getPoints(times.get(i), values.get(i));
+      }
+      this.refreshScheduled = false;
+    }
+
+    for (int i = 0; i < this.timeSeries.size(); i++) {
+      final TimeSeries series = this.timeSeries.get(i);
+      series.setNotify(false);
+      series.clear();
+      if (counts[i] == 0 || times.get(i)[0] > 0) {
+        series.add(new Millisecond(new Date(START_TIME)), 0.0, false);
+      }
+      for (int j = 0; j < counts[i]; j++) {
+        series.addOrUpdate(new Millisecond(new Date(START_TIME + times.get(i)[j])),
+          values.get(i)[j]);
+      }
+      series.setNotify(true);
+    }
   }
 }
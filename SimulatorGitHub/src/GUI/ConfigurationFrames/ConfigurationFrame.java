@@ -20,9 +20,11 @@ import javax.swing.WindowConstants;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import GUI.Charts.AmplificationCharts;
 import Model.AbstractConfiguration.GetMethod;
 import Model.AbstractConfiguration.SetMethod;
 import Model.Configuration;
+import Model.SimulationExecutor;
 import Model.Simulator;
 import Model.Compactors.CompactionAlgorithm;
 import Model.Compactors.CompactionConfigurations.AbstractCompactionConfiguration;
@@ -52,6 +54,11 @@ public class ConfigurationFrame extends AbstractConfigurationFrame {
    */
   private final List<JComboBox> storeCombos;
 
+  /**
+   * running simulation
+   */
+  private Simulator simulator;
+
   /**
    * apply button - for applying changes to Configuration, user did in general HBase configurations
    */
@@ -87,21 +94,26 @@ public class ConfigurationFrame extends AbstractConfigurationFrame {
     final CompactionAlgorithm[] compactionAlgorithms = CompactionAlgorithm.values();
     for (final int i : graphsIds) {
       final AbstractCompactionConfiguration compactionConfiguration = compactionAlgorithms[0]
-          .getCompactionConfiguration();
+          .getCompactionConfiguration(Configuration.INSTANCE, i);
       final JButton button = new JButton(Integer.toString(i));
       final JComboBox comboBox = new JComboBox(compactionAlgorithms);
 
       button.addActionListener(new ActionListener() {
         @Override
         public void actionPerformed(final ActionEvent e) {
-          ConfigurationFrame.this.compactorsConfigurations.get(i).showFrame(button.getText());
+          final AbstractCompactionConfiguration configuration = ConfigurationFrame.this.compactorsConfigurations
+              .get(i);
+          new CompactionConfigurationFrame("Store '" + button.getText()
+              + "' CompactionConfiguration", configuration.getGetFields(),
+              configuration.getSetFields()).setVisible(true);
         }
       });
       comboBox.addActionListener(new ActionListener() {
         @Override
         public void actionPerformed(final ActionEvent arg0) {
           ConfigurationFrame.this.compactorsConfigurations.set(i,
-            ((CompactionAlgorithm) comboBox.getSelectedItem()).getCompactionConfiguration());
+            ((CompactionAlgorithm) comboBox.getSelectedItem())
+                .getCompactionConfiguration(Configuration.INSTANCE, i));
         }
       });
 
@@ -284,12 +296,8 @@ public class ConfigurationFrame extends AbstractConfigurationFrame {
     this.goButton.setVisible(false);
     this.stopButton.setVisible(true);
 
-    new Thread(new Runnable() {
-      @Override
-      public void run() {
-        Simulator.INSTANCE.start(ConfigurationFrame.this.compactorsConfigurations);
-      }
-    }).start();
+    this.simulator = new Simulator(Configuration.INSTANCE, this.compactorsConfigurations);
+    SimulationExecutor.getShared().submit(this.simulator, new AmplificationCharts());
   }
 
   /**
@@ -297,7 +305,7 @@ public class ConfigurationFrame extends AbstractConfigurationFrame {
    */
   private void stopActionPerformed(final java.awt.event.ActionEvent evt) {
     this.stopButton.setVisible(false);
-    Simulator.INSTANCE.stop();
+    this.simulator.stop();
   }
 
   /**
@@ -3,6 +3,7 @@ package GUI;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import GUI.ConfigurationFrames.ConfigurationFrame;
 import Model.Configuration;
 
 /**
@@ -14,6 +15,7 @@ public class GUI {
   private static final Log LOG = LogFactory.getLog(GUI.class.getName());
 
   public static void main(final String args[]) {
-    Configuration.INSTANCE.showFrame("Configuration frame");
+    new ConfigurationFrame("Configuration frame", Configuration.INSTANCE.getGetFields(),
+      Configuration.INSTANCE.getSetFields()).setVisible(true);
   }
 }
@@ -5,8 +5,6 @@ import java.util.Map;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import GUI.ConfigurationFrames.AbstractConfigurationFrame;
-
 /**
  * abstract parent class for Configuration and different CompactionConfigurations
  * @author ibra
@@ -41,22 +39,40 @@ public abstract class AbstractConfiguration {
   protected abstract Map<String, SetMethod> fillSetFields();
 
   /**
-   * methods updates compaction configuration using CompactionConfigurationFrame this method is called
-   * from ComfigurationFrame if user hits the button to change some compaction configuration
-   * @param title - title for ConfigurationSetterFrame
+   * @return all methods to get configuration fields, mapped by field title. Used by configuration
+   *         frames to show configuration values
+   */
+  public final Map<String, GetMethod> getGetFields() {
+    return this.getFields;
+  }
+
+  /**
+   * @return all methods to set configuration fields, mapped by field title. Used by configuration
+   *         frames and scenario files to change configuration values
    */
-  public final void showFrame(final String title) {
-    this.getConfigurationFrame(title, this.getFields, this.setFields).setVisible(true);
+  public final Map<String, SetMethod> getSetFields() {
+    return this.setFields;
   }
 
   /**
-   * abstract method to get ConfigurationFrame for changing this configuration
-   * @param title - main title for ConfigurationFrame
-   * @param getFields - get fields map of compaction configuration
-   * @param setFields - get fields map of compaction configuration
+   * sets configuration field by its title
+   * @param title - title of configuration field (as in fillSetFields)
+   * @param value - new value of configuration field
+   * @throws IllegalArgumentException if there is no such field or value is incorrect
    */
-  protected abstract AbstractConfigurationFrame getConfigurationFrame(final String title,
-      final Map<String, GetMethod> getFields, final Map<String, SetMethod> setFields);
+  public final void set(final String title, final String value) {
+    final SetMethod setMethod = this.setFields.get(title);
+    if (setMethod == null) {
+      throw new IllegalArgumentException("unknown configuration field '" + title + "' in "
+          + this.getClass().getSimpleName());
+    }
+    try {
+      setMethod.set(value);
+    } catch (final NumberFormatException e) {
+      throw new IllegalArgumentException("incorrect value '" + value + "' of configuration field '"
+          + title + "'");
+    }
+  }
 
   /**
    * interface to get compaction configuration fields
@@ -0,0 +1,456 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import Tools.LatencyHistogram;
+
+/**
+ * AmplificationMetrics - write amplification and read amplification of each store, cumulative since
+ * start and over tumbling windows of "Metrics window(ms)" of simulated time, and disk usage of each
+ * store with its peak.
+ *
+ * All events of simulation are executed by one thread, so counters are plain arrays of primitives
+ * indexed by columnFamily, they are updated without locks and boxing. Observers are called by the
+ * same thread.
+ *
+ * Read amplification (storeFiles count) is step function of simulated time, so it is integrated
+ * exactly between its changes: window keeps time-weighted average, maximum and histogram of time
+ * spent at each value, so percentile is value that read amplification didn't exceed for that part of
+ * window. Write amplification of window is compaction writes / flush writes during window. Values of
+ * the last finished window are available till the next one is finished.
+ *
+ * The same values are measured over each Phase of simulation: startPhase remembers counters at
+ * start of phase and logPhase writes write amplification and average read amplification since then
+ * @author ibra
+ */
+public class AmplificationMetrics {
+
+  private static final Log LOG = LogFactory.getLog(AmplificationMetrics.class.getName());
+
+  /**
+   * length(ms) of window, 0 if windows are not measured
+   */
+  private final long window;
+
+  /**
+   * bytes written by flushes of each store since start
+   */
+  private final long[] flushWrites;
+
+  /**
+   * amount of flushes of each store since start
+   */
+  private final long[] flushesCounts;
+
+  /**
+   * bytes written by compactions of each store since start
+   */
+  private final long[] compactionWrites;
+
+  /**
+   * current read amplification of each store
+   */
+  private final long[] readAmplification;
+
+  /**
+   * bytes each store holds on disk now
+   */
+  private final long[] diskUsage;
+
+  /**
+   * maximal bytes each store held on disk since start
+   */
+  private final long[] peakDiskUsage;
+
+  /**
+   * simulated time(ms) till which read amplification of each store is integrated
+   */
+  private final long[] integratedTime;
+
+  /**
+   * integral of read amplification of each store since start till integratedTime
+   */
+  private final double[] readArea;
+
+  /**
+   * simulated time(ms) when current phase started
+   */
+  private long phaseStart;
+
+  /**
+   * flushWrites at start of current phase
+   */
+  private final long[] phaseFlushWrites;
+
+  /**
+   * compactionWrites at start of current phase
+   */
+  private final long[] phaseCompactionWrites;
+
+  /**
+   * integral of read amplification since start till start of current phase
+   */
+  private final double[] phaseReadArea;
+
+  /**
+   * maximal read amplification in current phase
+   */
+  private final long[] phaseMaxRead;
+
+  /**
+   * simulated time(ms) when current window ends
+   */
+  private long windowEnd;
+
+  /**
+   * flushWrites at start of current window
+   */
+  private final long[] windowFlushWrites;
+
+  /**
+   * compactionWrites at start of current window
+   */
+  private final long[] windowCompactionWrites;
+
+  /**
+   * integral of read amplification over current window
+   */
+  private final double[] windowReadArea;
+
+  /**
+   * maximal read amplification in current window
+   */
+  private final long[] windowMaxRead;
+
+  /**
+   * time(ms) spent at each read amplification in current window
+   */
+  private final LatencyHistogram[] windowReadHistograms;
+
+  /**
+   * write amplification of the last finished window, NaN till first window is finished
+   */
+  private final double[] lastWriteAmplification;
+
+  /**
+   * time-weighted average read amplification of the last finished window
+   */
+  private final double[] lastAverageRead;
+
+  /**
+   * maximal read amplification of the last finished window
+   */
+  private final long[] lastMaxRead;
+
+  /**
+   * time(ms) spent at each read amplification in the last finished window
+   */
+  private LatencyHistogram[] lastReadHistograms;
+
+  /**
+   * @param storesCount - amount of stores
+   * @param window - length(ms) of window, 0 if windows are not measured
+   */
+  public AmplificationMetrics(final int storesCount, final long window) {
+    this.window = window;
+    this.flushWrites = new long[storesCount];
+    this.flushesCounts = new long[storesCount];
+    this.compactionWrites = new long[storesCount];
+    this.readAmplification = new long[storesCount];
+    this.integratedTime = new long[storesCount];
+    this.readArea = new double[storesCount];
+    this.phaseStart = 0;
+    this.phaseFlushWrites = new long[storesCount];
+    this.phaseCompactionWrites = new long[storesCount];
+    this.phaseReadArea = new double[storesCount];
+    this.phaseMaxRead = new long[storesCount];
+    this.diskUsage = new long[storesCount];
+    this.peakDiskUsage = new long[storesCount];
+    this.windowEnd = window;
+    this.windowFlushWrites = new long[storesCount];
+    this.windowCompactionWrites = new long[storesCount];
+    this.windowReadArea = new double[storesCount];
+    this.windowMaxRead = new long[storesCount];
+    this.windowReadHistograms = new LatencyHistogram[storesCount];
+    this.lastWriteAmplification = new double[storesCount];
+    this.lastAverageRead = new double[storesCount];
+    this.lastMaxRead = new long[storesCount];
+    this.lastReadHistograms = new LatencyHistogram[storesCount];
+    for (int i = 0; i < storesCount; i++) {
+      this.windowReadHistograms[i] = new LatencyHistogram();
+      this.lastReadHistograms[i] = new LatencyHistogram();
+      this.lastWriteAmplification[i] = Double.NaN;
+      this.lastAverageRead[i] = Double.NaN;
+    }
+  }
+
+  /**
+   * @return if windows are measured
+   */
+  public boolean isWindowed() {
+    return this.window > 0;
+  }
+
+  /**
+   * finishes all windows that end not later than time
+   * @param time - current simulated time(ms)
+   */
+  public void advance(final long time) {
+    while (this.window > 0 && time >= this.windowEnd) {
+      this.finishWindow();
+      this.windowEnd += this.window;
+    }
+  }
+
+  /**
+   * finishes current window at windowEnd and starts next one
+   */
+  private void finishWindow() {
+    for (int i = 0; i < this.flushWrites.length; i++) {
+      this.integrate(i, this.windowEnd);
+      this.lastWriteAmplification[i] = (double) (this.compactionWrites[i]
+          - this.windowCompactionWrites[i])
+          / (this.flushWrites[i] - this.windowFlushWrites[i]);
+      this.lastAverageRead[i] = this.windowReadArea[i] / this.window;
+      this.lastMaxRead[i] = this.windowMaxRead[i];
+
+      this.windowFlushWrites[i] = this.flushWrites[i];
+      this.windowCompactionWrites[i] = this.compactionWrites[i];
+      this.windowReadArea[i] = 0;
+      this.windowMaxRead[i] = this.readAmplification[i];
+    }
+    // histograms of finished window become the last ones, old last ones are reused
+    final LatencyHistogram[] histograms = this.lastReadHistograms;
+    this.lastReadHistograms = this.windowReadHistograms.clone();
+    for (int i = 0; i < histograms.length; i++) {
+      histograms[i].clear();
+      this.windowReadHistograms[i] = histograms[i];
+    }
+  }
+
+  /**
+   * adds read amplification of store from the last integrated time till time to current window
+   * @param columnFamily - column family of store
+   * @param time - simulated time(ms), not after end of current window
+   */
+  private void integrate(final int columnFamily, final long time) {
+    final long duration = time - this.integratedTime[columnFamily];
+    if (duration > 0) {
+      this.readArea[columnFamily] += (double) this.readAmplification[columnFamily] * duration;
+      this.windowReadArea[columnFamily] += (double) this.readAmplification[columnFamily] * duration;
+      this.windowReadHistograms[columnFamily].record(this.readAmplification[columnFamily],
+        duration);
+      this.integratedTime[columnFamily] = time;
+    }
+  }
+
+  /**
+   * flush was finished
+   * @param columnFamily - column family of store
+   * @param bytesSize - bytes written by flush
+   * @param time - current simulated time(ms)
+   */
+  public void flushOccurred(final int columnFamily, final long bytesSize, final long time) {
+    this.advance(time);
+    this.flushWrites[columnFamily] += bytesSize;
+    this.flushesCounts[columnFamily]++;
+  }
+
+  /**
+   * compaction was finished
+   * @param columnFamily - column family of store
+   * @param bytesSize - bytes written by compaction
+   * @param time - current simulated time(ms)
+   */
+  public void compactionOccurred(final int columnFamily, final long bytesSize, final long time) {
+    this.advance(time);
+    this.compactionWrites[columnFamily] += bytesSize;
+  }
+
+  /**
+   * read amplification of store was changed
+   * @param columnFamily - column family of store
+   * @param value - new read amplification
+   * @param time - current simulated time(ms)
+   */
+  public void readAmplificationChanged(final int columnFamily, final long value, final long time) {
+    this.advance(time);
+    this.integrate(columnFamily, time);
+    this.readAmplification[columnFamily] = value;
+    this.windowMaxRead[columnFamily] = Math.max(this.windowMaxRead[columnFamily], value);
+    this.phaseMaxRead[columnFamily] = Math.max(this.phaseMaxRead[columnFamily], value);
+  }
+
+  /**
+   * disk usage of store was changed
+   * @param columnFamily - column family of store
+   * @param bytesSize - bytes store holds on disk now
+   */
+  public void diskUsageChanged(final int columnFamily, final long bytesSize) {
+    this.diskUsage[columnFamily] = bytesSize;
+    this.peakDiskUsage[columnFamily] = Math.max(this.peakDiskUsage[columnFamily], bytesSize);
+  }
+
+  /**
+   * @return bytes store holds on disk now
+   */
+  public long getDiskUsage(final int columnFamily) {
+    return this.diskUsage[columnFamily];
+  }
+
+  /**
+   * @return maximal bytes store held on disk since start
+   */
+  public long getPeakDiskUsage(final int columnFamily) {
+    return this.peakDiskUsage[columnFamily];
+  }
+
+  /**
+   * @return bytes written by flushes of store since start
+   */
+  public long getFlushWrites(final int columnFamily) {
+    return this.flushWrites[columnFamily];
+  }
+
+  /**
+   * @return amount of flushes of store since start
+   */
+  public long getFlushesCount(final int columnFamily) {
+    return this.flushesCounts[columnFamily];
+  }
+
+  /**
+   * @return bytes written by compactions of store since start
+   */
+  public long getCompactionWrites(final int columnFamily) {
+    return this.compactionWrites[columnFamily];
+  }
+
+  /**
+   * @return current read amplification of store
+   */
+  public long getReadAmplification(final int columnFamily) {
+    return this.readAmplification[columnFamily];
+  }
+
+  /**
+   * @return write amplification of store since start
+   */
+  public double getWriteAmplification(final int columnFamily) {
+    return (double) this.compactionWrites[columnFamily] / this.flushWrites[columnFamily];
+  }
+
+  /**
+   * @return write amplification of store over the last finished window, NaN if there is none
+   */
+  public double getWindowWriteAmplification(final int columnFamily) {
+    return this.lastWriteAmplification[columnFamily];
+  }
+
+  /**
+   * @return time-weighted average read amplification of store over the last finished window, NaN
+   *         if there is none
+   */
+  public double getWindowAverageReadAmplification(final int columnFamily) {
+    return this.lastAverageRead[columnFamily];
+  }
+
+  /**
+   * @return maximal read amplification of store in the last finished window
+   */
+  public long getWindowMaxReadAmplification(final int columnFamily) {
+    return this.lastMaxRead[columnFamily];
+  }
+
+  /**
+   * @param quantile - quantile in [0, 1], for example 0.99
+   * @return read amplification that store didn't exceed for quantile of the last finished window
+   */
+  public long getWindowReadAmplificationAtQuantile(final int columnFamily, final double quantile) {
+    return this.lastReadHistograms[columnFamily].getValueAtQuantile(quantile);
+  }
+
+  /**
+   * @return write amplification of each store sent to observer: over the last finished window if
+   *         windows are measured, since start otherwise
+   */
+  public List<Double> getObservedWriteAmplification() {
+    final List<Double> res = new ArrayList<Double>();
+    for (int i = 0; i < this.flushWrites.length; i++) {
+      res.add(this.window > 0 ? this.getWindowWriteAmplification(i) : this
+          .getWriteAmplification(i));
+    }
+    return res;
+  }
+
+  /**
+   * @return read amplification of each store sent to observer: time-weighted average over the last
+   *         finished window if windows are measured, current otherwise
+   */
+  public List<Double> getObservedReadAmplification() {
+    final List<Double> res = new ArrayList<Double>();
+    for (int i = 0; i < this.readAmplification.length; i++) {
+      res.add(this.window > 0 ? this.getWindowAverageReadAmplification(i)
+          : (double) this.getReadAmplification(i));
+    }
+    return res;
+  }
+
+  /**
+   * new phase of simulation is started, values of phase are measured from now
+   * @param time - current simulated time(ms)
+   */
+  public void startPhase(final long time) {
+    this.advance(time);
+    this.phaseStart = time;
+    for (int i = 0; i < this.flushWrites.length; i++) {
+      this.integrate(i, time);
+      this.phaseFlushWrites[i] = this.flushWrites[i];
+      this.phaseCompactionWrites[i] = this.compactionWrites[i];
+      this.phaseReadArea[i] = this.readArea[i];
+      this.phaseMaxRead[i] = this.readAmplification[i];
+    }
+  }
+
+  /**
+   * writes write amplification, time-weighted average and maximal read amplification and disk
+   * usage of each store over current phase to log
+   * @param name - name of current phase
+   * @param time - current simulated time(ms), end of phase
+   */
+  public void logPhase(final String name, final long time) {
+    this.advance(time);
+    for (int i = 0; i < this.flushWrites.length; i++) {
+      this.integrate(i, time);
+      LOG.info("phase '" + name + "' (" + this.phaseStart + " - " + time + " ms) store " + i
+          + ": WAF = " + (double) (this.compactionWrites[i] - this.phaseCompactionWrites[i])
+          / (this.flushWrites[i] - this.phaseFlushWrites[i]) + ", average RAF = "
+          + (this.readArea[i] - this.phaseReadArea[i]) / (time - this.phaseStart) + ", max RAF = "
+          + this.phaseMaxRead[i] + ", disk = " + this.getDiskUsage(i) + " bytes");
+    }
+  }
+
+  /**
+   * writes amplification and disk usage of each store to log: since start and, if windows are
+   * measured, over the last finished window
+   */
+  public void log() {
+    for (int i = 0; i < this.flushWrites.length; i++) {
+      String line = "store " + i + " amplification: WAF = " + this.getWriteAmplification(i)
+          + ", disk = " + this.getDiskUsage(i) + " bytes, peak disk = " + this.getPeakDiskUsage(i)
+          + " bytes";
+      if (this.window > 0) {
+        line += ", window WAF = " + this.getWindowWriteAmplification(i) + ", window RAF: average = "
+            + this.getWindowAverageReadAmplification(i) + ", p50 = "
+            + this.getWindowReadAmplificationAtQuantile(i, 0.5) + ", p99 = "
+            + this.getWindowReadAmplificationAtQuantile(i, 0.99) + ", max = "
+            + this.getWindowMaxReadAmplification(i);
+      }
+      LOG.info(line);
+    }
+  }
+}
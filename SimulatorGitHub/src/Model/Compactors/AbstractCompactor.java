@@ -1,8 +1,5 @@
 package Model.Compactors;
 
-import java.util.Queue;
-import java.util.concurrent.LinkedBlockingQueue;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -11,13 +8,16 @@ import Model.Simulator;
 import Model.HBaseElements.Store;
 import Model.HBaseElements.StoreFile;
 import Model.HBaseElements.StoreFileCollection;
+import Tools.Event;
 import Tools.HDFS;
 import Tools.HDFSStream;
-import Tools.Helper;
+import Tools.IOPriority;
+import Tools.RandomGenerator;
 
 /**
  * AbstractCompactor is class for compactions. It does minor and major compactions.
- * There are 2 threads - for large compactions and small compactions 
+ * Compactions are done by threads of CompactionPool of store - large compactions and small
+ * compactions have separate queues and threads
  * You should inherit from this class if you want create some new compaction algorithm. 
  * AbstractCompactor contains compaction configuration object.
  * @author ibra
@@ -32,25 +32,45 @@ public abstract class AbstractCompactor {
   private final Store store;
 
   /**
-   * Background large compactor - does large compactions in background
+   * simulation this compactor works in
+   */
+  private final Simulator simulator;
+
+  /**
+   * HDFS object to read/write from/to HDFS during compactions
    */
-  private final BackgroundCompactor largeCompactor;
+  private final HDFS hdfs;
 
   /**
-   * Background small compactor - does small compactions in background
+   * random stream of this compactor, split from stream of store
    */
-  private final BackgroundCompactor smallCompactor;
+  private final RandomGenerator randomGenerator;
 
   /**
    * creates and initializes object
    * @param hdfs HDFS object - represents HDFS - to read and write with several threads. 
-   *        There is one HDFS object per Store
+   *        It can be shared by several Stores (see "Stores per HDFS" in Configuration)
    * @param store is Store object where this compactor works
    */
   public AbstractCompactor(final HDFS hdfs, final Store store) {
-    this.largeCompactor = new BackgroundCompactor(hdfs);
-    this.smallCompactor = new BackgroundCompactor(hdfs);
+    this.hdfs = hdfs;
     this.store = store;
+    this.simulator = store.getSimulator();
+    this.randomGenerator = store.getRandomGenerator().split();
+  }
+
+  /**
+   * @return simulation this compactor works in
+   */
+  protected Simulator getSimulator() {
+    return this.simulator;
+  }
+
+  /**
+   * @return random stream of this compactor
+   */
+  protected RandomGenerator getRandomGenerator() {
+    return this.randomGenerator;
   }
 
   /**
@@ -89,7 +109,8 @@ public abstract class AbstractCompactor {
   }
 
   /**
-   * this method decides if compaction is large or small and adds it to corresponding BackgroundCompactor
+   * this method decides if compaction is large or small and adds it to corresponding queue of
+   * CompactionPool of store
    * @param storeFiles - collection of storeFiles of store
    * @param toCompact - collection of storeFiles that are to be compacted
    * @param isMajor - is compaction - a major compaction
@@ -108,171 +129,102 @@ public abstract class AbstractCompactor {
     for (StoreFile storeFile : toCompact) {
       storeFiles.remove(storeFile);
     }
+    this.store.compactionQueued(toCompact, compactionSize);
 
-    switch (this.getCompactionType(compactionSize)) {
-    case LARGE:
-      this.largeCompactor.add(toCompact, compactionSize, isMajor);
-      break;
-    case SMALL:
-      this.smallCompactor.add(toCompact, compactionSize, isMajor);
-      break;
-    }
+    this.store.getCompactionPool().add(this, toCompact, compactionSize, isMajor,
+      this.getCompactionType(compactionSize));
   }
 
   /**
-   * BackgroundCompactor class - does compactions in background
-   * @author ibra
+   * @return priority of compactions of this store: the less - the sooner they are started
    */
-  private class BackgroundCompactor {
-
-    private final Log LOG = LogFactory.getLog(BackgroundCompactor.class.getName());
-
-    /**
-     * compactions queries queue
-     */
-    private final Queue<Query> queue = new LinkedBlockingQueue<Query>();
-
-    /**
-     * runs thread to do compactions
-     */
-    private BackgroundCompactor(final HDFS hdfs) {
-      new Thread(new Runnable() {
-        @Override
-        public void run() {
-          // HDFSStream - to read/write from HDFS in this thread
-          final HDFSStream stream = new HDFSStream(hdfs);
-
-          while (!Simulator.INSTANCE.isStopped()) {
-            Helper.sleep();
-            while (!BackgroundCompactor.this.queue.isEmpty()) {
-              final StoreFileCollection toCompact = BackgroundCompactor.this.queue.peek().toCompact;
-              long compactionSize = BackgroundCompactor.this.queue.peek().compactionSize;
-              final boolean isMajor = BackgroundCompactor.this.queue.peek().isMajor;
-              BackgroundCompactor.this.queue.poll();
-
-              final long checkPoint = System.currentTimeMillis();
-
-              // if this compaction is major, we take all compaction queries from
-              // queue and do a major compaction - compaction of all files
-              if (isMajor) {
-                while (!BackgroundCompactor.this.queue.isEmpty()) {
-                  compactionSize += BackgroundCompactor.this.queue.peek().compactionSize;
-                  toCompact.addAll(BackgroundCompactor.this.queue.peek().toCompact);
-                  BackgroundCompactor.this.queue.poll();
-                }
-
-                BackgroundCompactor.this.LOG.info("start major compaction");
-                BackgroundCompactor.this.LOG.info("compactionSize =  " + compactionSize);
-                BackgroundCompactor.this.logCompactionInfo(toCompact, toCompact);
-              }
-
-              StoreFile compacted = BackgroundCompactor.this.compact(toCompact, stream);
-              // compaction finished, so we call compactionFinished method of Simulator
-              // and send amount of data, that was read and written to HDFS during this compaction
-              // compactionSize - was read
-              // compacted.getBytesSize() - was written
-              final long totalHDFSIO = compactionSize + compacted.getBytesSize();
-              AbstractCompactor.this.store.compactionFinished(compacted, totalHDFSIO);
+  int getCompactionPriority() {
+    return this.store.getCompactionPriority();
+  }
 
-              if (isMajor) {
-                BackgroundCompactor.this.LOG.info("it took "
-                    + (double) (System.currentTimeMillis() - checkPoint)
-                    * Configuration.INSTANCE.getxFaster() / Configuration.MS_PER_DAY
-                    + " days. totalHDFSIO = " + totalHDFSIO);
-                BackgroundCompactor.this.LOG.info("end major compaction");
-              }
-            }
-          }
-        }
-      }).start();
+  /**
+   * does compaction in CompactionPool thread. When HDFS finishes reading and writing compacted
+   * files, resulted StoreFile is sent to store and onFinish is executed
+   * @param toCompact - collection of storeFiles to compact
+   * @param compactionSize - total size of StoreFiles in toCompact
+   * @param isMajor - is compaction - a major compaction
+   * @param priority - IO class of compaction
+   * @param onFinish - event to be executed when compaction is finished
+   */
+  void runCompaction(final StoreFileCollection toCompact, final long compactionSize,
+      final boolean isMajor, final IOPriority priority, final Event onFinish) {
+    final long checkPoint = this.simulator.getCurrentTime();
+
+    if (isMajor) {
+      LOG.info("start major compaction");
+      LOG.info("compactionSize =  " + compactionSize);
+      this.logCompactionInfo(toCompact, toCompact);
     }
 
-    /**
-     * this method actually does compaction
-     * @param toCompact - collection of storeFiles to compact
-     * @param stream - HDFSStream to read/write from/to HDFS
-     * @return compacted storeFile
-     */
-    private StoreFile compact(final StoreFileCollection toCompact, final HDFSStream stream) {
-      final StoreFile compacted = new StoreFile();
-
-      for (StoreFile storeFile : toCompact) {
-        compacted.mergeWith(storeFile, stream);
-      }
-
-      return compacted;
-    }
+    // HDFSStream - to read/write from HDFS during this compaction
+    final HDFSStream stream = new HDFSStream(this.hdfs, priority, this.store.getColumnFamily());
+    final StoreFile compacted = this.compact(toCompact, stream);
+    this.store.compactionWriting(compacted.getBytesSize());
+    // compaction finished, so we call compactionFinished method of Store
+    // and send amount of data, that was read and written to HDFS during this compaction
+    // compactionSize - was read
+    // compacted.getBytesSize() - was written
+    final long totalHDFSIO = compactionSize + compacted.getBytesSize();
+    stream.submit(new Event() {
+      @Override
+      public void execute() {
+        AbstractCompactor.this.store.compactionFinished(compacted, totalHDFSIO, toCompact,
+          compactionSize);
+
+        if (isMajor) {
+          LOG.info("it took "
+              + (double) (AbstractCompactor.this.simulator.getCurrentTime() - checkPoint)
+              / Configuration.MS_PER_DAY + " days. totalHDFSIO = " + totalHDFSIO);
+          LOG.info("end major compaction");
+        }
 
-    /**
-     * method adds compaction query to queue
-     * @param toCompact - collect of StoreFiles to compact
-     * @param compactionSize - size of this compaction (in bytes)
-     * @param isMajor - is this compaction is major compaction
-     */
-    private void add(final StoreFileCollection toCompact, final long compactionSize,
-        final boolean isMajor) {
-      if (toCompact.isEmpty()) {
-        return;
+        onFinish.execute();
       }
+    });
+  }
 
-      this.queue.add(new Query(toCompact, compactionSize, isMajor));
-    }
+  /**
+   * this method actually does compaction
+   * @param toCompact - collection of storeFiles to compact
+   * @param stream - HDFSStream to read/write from/to HDFS
+   * @return compacted storeFile
+   */
+  private StoreFile compact(final StoreFileCollection toCompact, final HDFSStream stream) {
+    final StoreFile compacted = new StoreFile(this.simulator, this.store.getRandomGenerator());
 
-    /**
-     * prints some information about compaction
-     * @param storeFiles - collection of storeFiles of store
-     * @param toCompact - collection of storeFiles that are to be compacted
-     */
-    private void logCompactionInfo(final StoreFileCollection storeFiles,
-        final StoreFileCollection toCompact) {
-      String message = "";
-      for (final StoreFile storeFile : storeFiles) {
-        long size = (long) (storeFile.getBytesSize() * Configuration.INSTANCE.COMPRESSION_RATIO
-            / Configuration.INSTANCE.getMemstoreBytesSize() + 0.01);
-        if (toCompact.contains(storeFile)) {
-          message += "[" + size + "]";
-        } else {
-          message += size;
-        }
-        message += " ";
-      }
-      this.LOG.info("");
-      this.LOG.info(message);
+    for (StoreFile storeFile : toCompact) {
+      compacted.mergeWith(storeFile, stream);
     }
 
-    /**
-     * Compaction query class
-     * @author ibra
-     */
-    private class Query {
-      /**
-       * collection of storeFiles to compact
-       */
-      private final StoreFileCollection toCompact;
-
-      /**
-       * is this compaction request - major compaction request
-       */
-      private final boolean isMajor;
-
-      /**
-       * overall size of file that are to be compacted
-       */
-      private final long compactionSize;
+    return compacted;
+  }
 
-      /**
-       * creates and initializes Query object
-       * @param toCompact - storeFiles to compact
-       * @param compactionSize - total size of StoreFiles in toCompact
-       * @param isMajor - if this compaction request - major compaction request
-       */
-      private Query(final StoreFileCollection toCompact, final long compactionSize,
-          final boolean isMajor) {
-        this.toCompact = toCompact;
-        this.compactionSize = compactionSize;
-        this.isMajor = isMajor;
+  /**
+   * prints some information about compaction
+   * @param storeFiles - collection of storeFiles of store
+   * @param toCompact - collection of storeFiles that are to be compacted
+   */
+  private void logCompactionInfo(final StoreFileCollection storeFiles,
+      final StoreFileCollection toCompact) {
+    String message = "";
+    for (final StoreFile storeFile : storeFiles) {
+      final Configuration configuration = this.simulator.getConfiguration();
+      long size = (long) (storeFile.getBytesSize() * configuration.COMPRESSION_RATIO
+          / configuration.getMemstoreBytesSize() + 0.01);
+      if (toCompact.contains(storeFile)) {
+        message += "[" + size + "]";
+      } else {
+        message += size;
       }
+      message += " ";
     }
+    LOG.info("");
+    LOG.info(message);
   }
 
   public enum CompactionType {
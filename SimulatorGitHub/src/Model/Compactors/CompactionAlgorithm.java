@@ -3,6 +3,7 @@ package Model.Compactors;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import Model.Configuration;
 import Model.Compactors.CompactionConfigurations.AbstractCompactionConfiguration;
 import Model.Compactors.CompactionConfigurations.IbraCompactionConfiguration;
 import Model.Compactors.CompactionConfigurations.LevelBasedCompactionConfiguration;
@@ -19,48 +20,61 @@ import Model.Compactors.CompactionConfigurations.HBaseCompactionConfigurations.H
 public enum CompactionAlgorithm {
   HBaseCompactorWithDefaultConfiguration {
     @Override
-    public AbstractCompactionConfiguration getCompactionConfiguration() {
-      return new DefaultHBaseCompactionConfiguration();
+    public AbstractCompactionConfiguration getCompactionConfiguration(
+        final Configuration configuration, final int columnFamily) {
+      return new DefaultHBaseCompactionConfiguration(configuration);
     }
   },
   HBaseCompactorWithSpecific1Configuration {
     @Override
-    public AbstractCompactionConfiguration getCompactionConfiguration() {
-      return new HBaseCompactionSpecific1Configuration();
+    public AbstractCompactionConfiguration getCompactionConfiguration(
+        final Configuration configuration, final int columnFamily) {
+      return new HBaseCompactionSpecific1Configuration(configuration);
     }
   },
   HBaseCompactorWithSpecific2Configuration {
     @Override
-    public AbstractCompactionConfiguration getCompactionConfiguration() {
-      return new HBaseCompactionSpecific2Configuration();
+    public AbstractCompactionConfiguration getCompactionConfiguration(
+        final Configuration configuration, final int columnFamily) {
+      return new HBaseCompactionSpecific2Configuration(configuration);
     }
   },
   HBaseCompactorWithRandomConfiguration {
     @Override
-    public AbstractCompactionConfiguration getCompactionConfiguration() {
-      return new HBaseCompactionRandomConfiguration();
+    public AbstractCompactionConfiguration getCompactionConfiguration(
+        final Configuration configuration, final int columnFamily) {
+      return new HBaseCompactionRandomConfiguration(configuration, columnFamily);
     }
   },
   LevelBasedCompactor {
     @Override
-    public AbstractCompactionConfiguration getCompactionConfiguration() {
+    public AbstractCompactionConfiguration getCompactionConfiguration(
+        final Configuration configuration, final int columnFamily) {
       return new LevelBasedCompactionConfiguration();
     }
   },
   IbraCompactor {
     @Override
-    public AbstractCompactionConfiguration getCompactionConfiguration() {
+    public AbstractCompactionConfiguration getCompactionConfiguration(
+        final Configuration configuration, final int columnFamily) {
       return new IbraCompactionConfiguration();
     }
   },
   RandomCompactor {
     @Override
-    public AbstractCompactionConfiguration getCompactionConfiguration() {
+    public AbstractCompactionConfiguration getCompactionConfiguration(
+        final Configuration configuration, final int columnFamily) {
       return new RandomCompactionConfiguration();
     }
   };
 
   private static final Log LOG = LogFactory.getLog(CompactionAlgorithm.class.getName());
 
-  public abstract AbstractCompactionConfiguration getCompactionConfiguration();
+  /**
+   * @param configuration - general configuration of simulation
+   * @param columnFamily - column family of store the configuration is for
+   * @return new compaction configuration of this compaction algorithm
+   */
+  public abstract AbstractCompactionConfiguration getCompactionConfiguration(
+      final Configuration configuration, final int columnFamily);
 }
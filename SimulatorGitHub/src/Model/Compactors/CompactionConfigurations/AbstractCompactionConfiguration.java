@@ -6,8 +6,6 @@ import java.util.TreeMap;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import GUI.ConfigurationFrames.AbstractConfigurationFrame;
-import GUI.ConfigurationFrames.CompactionConfigurationFrame;
 import Model.AbstractConfiguration;
 import Model.Compactors.AbstractCompactor;
 import Model.HBaseElements.Store;
@@ -34,13 +32,6 @@ public abstract class AbstractCompactionConfiguration extends AbstractConfigurat
    */
   public abstract AbstractCompactor getCompactor(final HDFS hdfs, final Store store);
 
-  @Override
-  protected AbstractConfigurationFrame getConfigurationFrame(final String frameTitle,
-      final Map<String, GetMethod> getFields, final Map<String, SetMethod> setFields) {
-    return new CompactionConfigurationFrame("Store '" + frameTitle + "' CompactionConfiguration",
-        getFields, setFields);
-  }
-
   /**
    * fill getFields map
    */
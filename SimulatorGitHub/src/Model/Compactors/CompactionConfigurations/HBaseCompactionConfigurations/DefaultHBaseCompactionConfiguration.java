@@ -10,7 +10,8 @@ public final class DefaultHBaseCompactionConfiguration extends HBaseCompactionCo
   private static final Log LOG = LogFactory.getLog(DefaultHBaseCompactionConfiguration.class
       .getName());
 
-  public DefaultHBaseCompactionConfiguration() {
+  public DefaultHBaseCompactionConfiguration(final Configuration configuration) {
+    super(configuration);
     this.setMajorCompactionsGap(Long.toString(8400000L));
     this.setMajorCompactionsJitter(Double.toString(0.21));
 
@@ -21,7 +22,7 @@ public final class DefaultHBaseCompactionConfiguration extends HBaseCompactionCo
 
     this.setCompactionRatio(Double.toString(1.3));
     this.setThrottle(Long.toString(2 * this.getCompactionMaxFiles()
-        * Configuration.INSTANCE.getMemstoreBytesSize()));
+        * configuration.getMemstoreBytesSize()));
 
     this.setTitle("DefaultHBaseCompactionConfiguration");
   }
@@ -40,8 +40,15 @@ public abstract class HBaseCompactionConfiguration extends AbstractCompactionCon
 
   private double compactionRatio = 1.2; // hbase.store.compaction.ratio
 
-  private long throttle = 2 * this.compactionMaxFiles
-      * Configuration.INSTANCE.getMemstoreBytesSize();
+  private long throttle;
+
+  /**
+   * creates and initializes object
+   * @param configuration - general configuration, default throttle depends on memstore size
+   */
+  protected HBaseCompactionConfiguration(final Configuration configuration) {
+    this.throttle = 2 * this.compactionMaxFiles * configuration.getMemstoreBytesSize();
+  }
 
   /**
    * fill setFields map
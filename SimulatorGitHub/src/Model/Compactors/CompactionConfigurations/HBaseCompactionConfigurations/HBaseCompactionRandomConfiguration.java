@@ -16,21 +16,38 @@ public final class HBaseCompactionRandomConfiguration extends HBaseCompactionCon
       .getName());
 
   /**
-   * creates and initializes HBaseCompactionRandomConfiguration object
+   * mixed into "Random seed", so that streams of random configurations don't repeat streams of
+   * simulation split from the same seed
    */
-  public HBaseCompactionRandomConfiguration() {
+  private static final long SEED_SALT = 0x5ca1ab1e0ddba11L;
+
+  /**
+   * creates and initializes HBaseCompactionRandomConfiguration object. Random values are drawn from
+   * stream of "Random seed" and columnFamily, so the same scenario gives the same configuration
+   * @param configuration - general configuration
+   * @param columnFamily - column family of store the configuration is for
+   */
+  public HBaseCompactionRandomConfiguration(final Configuration configuration,
+      final int columnFamily) {
+    super(configuration);
+    final RandomGenerator streams = new RandomGenerator(configuration, configuration
+        .getRandomSeed() ^ HBaseCompactionRandomConfiguration.SEED_SALT);
+    RandomGenerator randomGenerator = streams.split();
+    for (int i = 0; i < columnFamily; i++) {
+      randomGenerator = streams.split();
+    }
 
     this.setMajorCompactionsGap(Long.toString(1000L * Configuration.MS_PER_DAY));
     this.setMajorCompactionsJitter(Double.toString(0.2));
 
-    this.setCompactionMinFiles(Long.toString(RandomGenerator.getRandomLong(3, 12)));
-    this.setCompactionMaxFiles(Long.toString(RandomGenerator.getRandomLong(5, 20)));
+    this.setCompactionMinFiles(Long.toString(randomGenerator.getRandomLong(3, 12)));
+    this.setCompactionMaxFiles(Long.toString(randomGenerator.getRandomLong(5, 20)));
     this.setCompactionMinBytes(Long.toString(0));
     this.setCompactionMaxBytes(Long.toString(Long.MAX_VALUE));
 
-    this.setCompactionRatio(Double.toString(RandomGenerator.getRandomDouble(0.2, 3.0)));
+    this.setCompactionRatio(Double.toString(randomGenerator.getRandomDouble(0.2, 3.0)));
     this.setThrottle(Long.toString(2 * this.getCompactionMaxFiles()
-        * Configuration.INSTANCE.getMemstoreBytesSize()));
+        * configuration.getMemstoreBytesSize()));
 
     this.setTitle("RandomHBaseCompactionConfiguration " + "( minFiles "
         + this.getCompactionMinFiles() + ")" + "( maxFiles " + this.getCompactionMaxFiles() + ")"
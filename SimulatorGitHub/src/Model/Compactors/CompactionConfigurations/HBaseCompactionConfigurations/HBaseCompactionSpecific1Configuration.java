@@ -16,8 +16,10 @@ public final class HBaseCompactionSpecific1Configuration extends HBaseCompaction
 
   /**
    * creates and initializes HBaseCompactionSpecific1Configuration object
+   * @param configuration - general configuration
    */
-  public HBaseCompactionSpecific1Configuration() {
+  public HBaseCompactionSpecific1Configuration(final Configuration configuration) {
+    super(configuration);
     // init with Specific1 configuration
     this.setMajorCompactionsGap(Long.toString(40L * Configuration.MS_PER_DAY));
     this.setMajorCompactionsJitter(Double.toString(0.4));
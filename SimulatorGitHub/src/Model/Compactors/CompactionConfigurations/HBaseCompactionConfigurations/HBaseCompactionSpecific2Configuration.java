@@ -15,8 +15,10 @@ public final class HBaseCompactionSpecific2Configuration extends HBaseCompaction
 
   /**
    * creates and initializes HBaseCompactionSpecific2Configuration object
+   * @param configuration - general configuration
    */
-  public HBaseCompactionSpecific2Configuration() {
+  public HBaseCompactionSpecific2Configuration(final Configuration configuration) {
+    super(configuration);
     // init with Specific2 configuration
     this.setMajorCompactionsGap(Long.toString(20L * Configuration.MS_PER_DAY));
     this.setMajorCompactionsJitter(Double.toString(0.25));
@@ -0,0 +1,229 @@
+package Model.Compactors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import Model.Configuration;
+import Model.Simulator;
+import Model.Compactors.AbstractCompactor.CompactionType;
+import Model.HBaseElements.StoreFileCollection;
+import Tools.Event;
+import Tools.IOPriority;
+
+/**
+ * CompactionPool - compaction threads of region server, shared by all its stores. Large and small
+ * compactions have separate queues, each served by its own amount of threads ("Large compaction
+ * threads" and "Small compaction threads" in Configuration).
+ * 
+ * When thread is free, it takes query of store under the highest pressure - with the least
+ * (blocking store files - storeFiles count), queries with equal priority are taken in order they
+ * were added. Priority is taken at the moment thread is free, not when query was added, because
+ * storeFiles count changes while query waits. Queues are short, so they are searched linearly.
+ * Time each query waited in queue is added to CompactionQueueStatistics
+ * @author ibra
+ */
+public class CompactionPool {
+
+  private static final Log LOG = LogFactory.getLog(CompactionPool.class.getName());
+
+  /**
+   * simulation this pool works in
+   */
+  private final Simulator simulator;
+
+  /**
+   * threads and queue of large compactions
+   */
+  private final Workers largeWorkers;
+
+  /**
+   * threads and queue of small compactions
+   */
+  private final Workers smallWorkers;
+
+  /**
+   * creates pool with amounts of threads from configuration of simulation
+   * @param simulator - simulation this pool works in
+   */
+  public CompactionPool(final Simulator simulator) {
+    final Configuration configuration = simulator.getConfiguration();
+    this.simulator = simulator;
+    this.largeWorkers = new Workers(CompactionType.LARGE, IOPriority.LARGE_COMPACTION,
+        configuration.getLargeCompactionThreads());
+    this.smallWorkers = new Workers(CompactionType.SMALL, IOPriority.SMALL_COMPACTION,
+        configuration.getSmallCompactionThreads());
+  }
+
+  /**
+   * adds compaction query to queue of its type, it is started when some thread is free
+   * @param compactor - compactor of store storeFiles belong to
+   * @param toCompact - collection of StoreFiles to compact
+   * @param compactionSize - size of this compaction (in bytes)
+   * @param isMajor - is this compaction is major compaction
+   * @param type - type of compaction - large or small
+   */
+  void add(final AbstractCompactor compactor, final StoreFileCollection toCompact,
+      final long compactionSize, final boolean isMajor, final CompactionType type) {
+    if (toCompact.isEmpty()) {
+      return;
+    }
+
+    final Workers workers = type == CompactionType.LARGE ? this.largeWorkers : this.smallWorkers;
+    workers.queue.add(new Query(compactor, toCompact, compactionSize, isMajor,
+        this.simulator.getCurrentTime()));
+    workers.startNext();
+  }
+
+  /**
+   * threads and queue of one type of compactions
+   * @author ibra
+   */
+  private class Workers {
+
+    /**
+     * type of compactions
+     */
+    private final CompactionType type;
+
+    /**
+     * IO class of minor compactions, major compactions have their own
+     */
+    private final IOPriority priority;
+
+    /**
+     * amount of threads
+     */
+    private final long threadsCount;
+
+    /**
+     * compactions queries queue in order they were added
+     */
+    private final List<Query> queue = new ArrayList<Query>();
+
+    /**
+     * amount of threads doing compaction right now
+     */
+    private long busyCount;
+
+    /**
+     * creates and initializes object
+     * @param type - type of compactions
+     * @param priority - IO class of minor compactions
+     * @param threadsCount - amount of threads, at least one thread is created
+     */
+    private Workers(final CompactionType type, final IOPriority priority, final long threadsCount) {
+      this.type = type;
+      this.priority = priority;
+      this.threadsCount = Math.max(1, threadsCount);
+      this.busyCount = 0;
+    }
+
+    /**
+     * starts queries of the highest priority while there are free threads. When compaction is
+     * finished its thread takes next query
+     */
+    private void startNext() {
+      while (this.busyCount < this.threadsCount && !this.queue.isEmpty()) {
+        final Query query = this.poll();
+        final long now = CompactionPool.this.simulator.getCurrentTime();
+        final CompactionQueueStatistics statistics = CompactionPool.this.simulator
+            .getCompactionQueueStatistics();
+        statistics.add(this.type, now - query.addTime);
+
+        final StoreFileCollection toCompact = query.toCompact;
+        long compactionSize = query.compactionSize;
+        // if this compaction is major, we take all compaction queries of its store from
+        // queue and do a major compaction - compaction of all files
+        if (query.isMajor) {
+          for (int i = 0; i < this.queue.size(); i++) {
+            final Query other = this.queue.get(i);
+            if (other.compactor == query.compactor) {
+              statistics.add(this.type, now - other.addTime);
+              compactionSize += other.compactionSize;
+              toCompact.addAll(other.toCompact);
+              this.queue.remove(i--);
+            }
+          }
+        }
+
+        this.busyCount++;
+        query.compactor.runCompaction(toCompact, compactionSize, query.isMajor,
+          query.isMajor ? IOPriority.MAJOR_COMPACTION : this.priority, new Event() {
+            @Override
+            public void execute() {
+              Workers.this.busyCount--;
+              Workers.this.startNext();
+            }
+          });
+      }
+    }
+
+    /**
+     * removes query of the highest priority from queue
+     * @return removed query
+     */
+    private Query poll() {
+      int best = 0;
+      int bestPriority = this.queue.get(0).compactor.getCompactionPriority();
+      for (int i = 1; i < this.queue.size(); i++) {
+        final int priority = this.queue.get(i).compactor.getCompactionPriority();
+        if (priority < bestPriority) {
+          best = i;
+          bestPriority = priority;
+        }
+      }
+      return this.queue.remove(best);
+    }
+  }
+
+  /**
+   * Compaction query class
+   * @author ibra
+   */
+  private static class Query {
+    /**
+     * compactor of store storeFiles belong to
+     */
+    private final AbstractCompactor compactor;
+
+    /**
+     * collection of storeFiles to compact
+     */
+    private final StoreFileCollection toCompact;
+
+    /**
+     * overall size of file that are to be compacted
+     */
+    private final long compactionSize;
+
+    /**
+     * is this compaction request - major compaction request
+     */
+    private final boolean isMajor;
+
+    /**
+     * simulated time(ms) when query was added to queue
+     */
+    private final long addTime;
+
+    /**
+     * creates and initializes Query object
+     * @param compactor - compactor of store storeFiles belong to
+     * @param toCompact - storeFiles to compact
+     * @param compactionSize - total size of StoreFiles in toCompact
+     * @param isMajor - if this compaction request - major compaction request
+     * @param addTime - simulated time(ms) when query was added to queue
+     */
+    private Query(final AbstractCompactor compactor, final StoreFileCollection toCompact,
+        final long compactionSize, final boolean isMajor, final long addTime) {
+      this.compactor = compactor;
+      this.toCompact = toCompact;
+      this.compactionSize = compactionSize;
+      this.isMajor = isMajor;
+      this.addTime = addTime;
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package Model.Compactors;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import Model.Compactors.AbstractCompactor.CompactionType;
+
+/**
+ * CompactionQueueStatistics - how long compaction queries waited in queues of CompactionPools for
+ * free thread, separately for large and small compactions
+ * @author ibra
+ */
+public class CompactionQueueStatistics {
+
+  private static final Log LOG = LogFactory.getLog(CompactionQueueStatistics.class.getName());
+
+  /**
+   * amount of started queries of each type, CompactionType.ordinal() is used as index
+   */
+  private final long[] queriesCounts = new long[CompactionType.values().length];
+
+  /**
+   * total wait time(ms) of queries of each type
+   */
+  private final long[] waitTimes = new long[CompactionType.values().length];
+
+  /**
+   * maximal wait time(ms) of query of each type
+   */
+  private final long[] maxWaitTimes = new long[CompactionType.values().length];
+
+  /**
+   * adds started query
+   * @param type - type of compaction
+   * @param waitTime - time(ms) query waited in queue
+   */
+  void add(final CompactionType type, final long waitTime) {
+    final int i = type.ordinal();
+    this.queriesCounts[i]++;
+    this.waitTimes[i] += waitTime;
+    this.maxWaitTimes[i] = Math.max(this.maxWaitTimes[i], waitTime);
+  }
+
+  /**
+   * @param type - type of compaction
+   * @return amount of started queries of type
+   */
+  public long getQueriesCount(final CompactionType type) {
+    return this.queriesCounts[type.ordinal()];
+  }
+
+  /**
+   * @param type - type of compaction
+   * @return average wait time(ms) of query of type
+   */
+  public double getAverageWaitTime(final CompactionType type) {
+    return (double) this.waitTimes[type.ordinal()] / this.queriesCounts[type.ordinal()];
+  }
+
+  /**
+   * @param type - type of compaction
+   * @return maximal wait time(ms) of query of type
+   */
+  public long getMaxWaitTime(final CompactionType type) {
+    return this.maxWaitTimes[type.ordinal()];
+  }
+
+  /**
+   * writes statistics of each type that had any queries to log
+   */
+  public void log() {
+    for (final CompactionType type : CompactionType.values()) {
+      if (this.getQueriesCount(type) == 0) {
+        continue;
+      }
+      LOG.info(type + " compactions queue: " + this.getQueriesCount(type)
+          + " queries, average wait = " + this.getAverageWaitTime(type) + " ms, max wait = "
+          + this.getMaxWaitTime(type) + " ms");
+    }
+  }
+}
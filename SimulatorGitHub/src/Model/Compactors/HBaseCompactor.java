@@ -3,13 +3,11 @@ package Model.Compactors;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import Model.Simulator;
 import Model.Compactors.CompactionConfigurations.HBaseCompactionConfigurations.HBaseCompactionConfiguration;
 import Model.HBaseElements.Store;
 import Model.HBaseElements.StoreFileCollection;
+import Tools.Event;
 import Tools.HDFS;
-import Tools.Helper;
-import Tools.RandomGenerator;
 
 /**
  * native compaction algorithm used in HBase
@@ -37,36 +35,47 @@ public class HBaseCompactor extends AbstractCompactor {
     this.compactionConfiguration = compactionConfiguration;
 
     /**
-     * thread that invokes major compactions
+     * periodic event that invokes major compactions
      */
-    new Thread(new Runnable() {
+    this.getSimulator().getEventQueue().scheduleAfter(this.getMajorCompactionGap(), new Event() {
       @Override
-      public void run() {
-        while (!Simulator.INSTANCE.isStopped()) {
-          Helper.sleepTo(System.currentTimeMillis()
-              + RandomGenerator.getMajorCompactionGap(
-                HBaseCompactor.this.compactionConfiguration.getMajorCompactionsGap(),
-                HBaseCompactor.this.compactionConfiguration.getMajorCompactionsJitter()));
-          store.forceMajorCompaction();
-        }
+      public void execute() {
+        store.forceMajorCompaction();
+        HBaseCompactor.this.getSimulator().getEventQueue().scheduleAfter(
+          HBaseCompactor.this.getMajorCompactionGap(), this);
       }
-    }).start();
+    });
   }
 
   /**
-   * methods selects what storeFiles should be compacted during minor compactions
+   * @return randomized time gap(ms) till next major compaction
+   */
+  private long getMajorCompactionGap() {
+    return this.getRandomGenerator().getMajorCompactionGap(
+      this.compactionConfiguration.getMajorCompactionsGap(),
+      this.compactionConfiguration.getMajorCompactionsJitter());
+  }
+
+  /**
+   * methods selects what storeFiles should be compacted during minor compactions.
+   * Selection works with range [start, end) of sizes of storeFiles, so it allocates nothing
+   * till the chosen files are taken as sublist
    * @param storeFiles - all storeFiles of store
    * @return collection of StoreFiles to compact
    */
   @Override
   protected StoreFileCollection selectFilesToCompact(final StoreFileCollection storeFiles) {
-    StoreFileCollection toCompact = new StoreFileCollection(storeFiles);
-    toCompact = this.skipLargeFiles(toCompact);
-    toCompact = this.applyCompactionPolicy(toCompact);
-    toCompact = this.checkMinFilesCriteria(toCompact);
-    toCompact = this.removeExcessFiles(toCompact);
+    final long[] sizes = storeFiles.getBytesSizes();
+    int start = 0;
+    int end = sizes.length;
+    start = this.skipLargeFiles(sizes, start, end);
+    start = this.applyCompactionPolicy(sizes, start, end);
+    if (!this.checkMinFilesCriteria(start, end)) {
+      return new StoreFileCollection();
+    }
+    end = this.removeExcessFiles(start, end);
 
-    return toCompact;
+    return storeFiles.subList(start, end);
   }
 
   /**
@@ -85,87 +94,78 @@ public class HBaseCompactor extends AbstractCompactor {
   }
 
   /**
-   * method removes too large storeFiles
-   * @param storeFiles - collection of storeFiles
-   * @return collection of storeFiles, without too large storeFiles
+   * method skips too large storeFiles
+   * @param sizes - sizes of storeFiles sorted by decreasing
+   * @param start - begin index of range of storeFiles
+   * @param end - index after last index of range of storeFiles
+   * @return begin index of range without too large storeFiles
    */
-  private StoreFileCollection skipLargeFiles(final StoreFileCollection storeFiles) {
-    int pos = 0;
-    while (pos < storeFiles.size()
-        && storeFiles.get(pos).getBytesSize() > this.compactionConfiguration
-            .getCompactionMaxBytes()) {
-      pos++;
-    }
-
-    if (pos > 0) {
-      return storeFiles.subList(pos, storeFiles.size());
+  private int skipLargeFiles(final long[] sizes, int start, final int end) {
+    while (start < end && sizes[start] > this.compactionConfiguration.getCompactionMaxBytes()) {
+      start++;
     }
-
-    return storeFiles;
+    return start;
   }
 
   /**
-   * methods chooses storeFiles for compaction due to configuration
-   * @param storeFiles - collection of storeFiles
-   * @return collection of storeFiles to compact
+   * methods chooses storeFiles for compaction due to configuration: skips files that are larger
+   * than compaction ratio * (sum of sizes of next maxFiles - 1 files)
+   * @param sizes - sizes of storeFiles sorted by decreasing
+   * @param start - begin index of range of storeFiles
+   * @param end - index after last index of range of storeFiles
+   * @return begin index of range of storeFiles to compact
    */
-  private StoreFileCollection applyCompactionPolicy(StoreFileCollection storeFiles) {
-    if (storeFiles.isEmpty()) {
-      return storeFiles;
+  private int applyCompactionPolicy(final long[] sizes, int start, final int end) {
+    if (start == end) {
+      return start;
     }
 
     final double r = this.compactionConfiguration.getCompactionRatio();
+    final long minFiles = this.compactionConfiguration.getCompactionMinFiles();
+    final long window = Math.max(0, this.compactionConfiguration.getCompactionMaxFiles() - 1);
 
-    // get store file sizes for incremental compacting selection.
-    final int countOfFiles = storeFiles.size();
-    final long[] fileSizes = new long[countOfFiles];
-    final long[] sumSize = new long[countOfFiles];
-    for (int i = countOfFiles - 1; i >= 0; --i) {
-      fileSizes[i] = storeFiles.get(i).getBytesSize();
-      // calculate the sum of fileSizes[i,i+maxFilesToCompact-1) for algo
-      final int tooFar = (int) (i + this.compactionConfiguration.getCompactionMaxFiles() - 1);
-      sumSize[i] = fileSizes[i] + ((i + 1 < countOfFiles) ? sumSize[i + 1] : 0)
-          - ((tooFar < countOfFiles) ? fileSizes[tooFar] : 0);
+    // sum of sizes[start + 1, start + 1 + window) - sliding window moved together with start
+    long sumSize = 0;
+    for (int i = start + 1; i < end && i < start + 1 + window; i++) {
+      sumSize += sizes[i];
     }
 
-    int start = 0;
-    while (countOfFiles - start >= this.compactionConfiguration.getCompactionMinFiles()
-        && fileSizes[start] > Math.max(this.compactionConfiguration.getCompactionMinBytes(),
-          (long) (sumSize[start + 1] * r))) {
+    while (end - start >= minFiles
+        && sizes[start] > Math.max(this.compactionConfiguration.getCompactionMinBytes(),
+          (long) (sumSize * r))) {
       ++start;
+      if (start < end) {
+        sumSize -= sizes[start];
+      }
+      if (start + window < end) {
+        sumSize += sizes[(int) (start + window)];
+      }
     }
 
-    storeFiles = storeFiles.subList(start, countOfFiles);
-
-    return storeFiles;
+    return start;
   }
 
   /**
-   * method checks if storeFiles contains enough elements
-   * @param storeFiles - collection of storeFiles
-   * @return empty collection if storeFiles contains to few elements,
-   *   else return collection from argument list
+   * method checks if range of storeFiles contains enough elements
+   * @param start - begin index of range of storeFiles
+   * @param end - index after last index of range of storeFiles
+   * @return false if range contains too few elements, so that we won't do compaction
    */
-  private StoreFileCollection checkMinFilesCriteria(final StoreFileCollection storeFiles) {
-    // if storeFiles contains not enough files, then we return
-    // empty StoreFilesCollection - that means that we won't do compaction
-    if (storeFiles.size() < this.compactionConfiguration.getCompactionMinFiles()) {
-      storeFiles.clear();
-    }
-    return storeFiles;
+  private boolean checkMinFilesCriteria(final int start, final int end) {
+    return end - start >= this.compactionConfiguration.getCompactionMinFiles();
   }
 
   /**
-   * if storeFiles collection contains too many elements, method removes excess storeFiles
-   * @param storeFiles - collection of StoreFiles
-   * @return collection with valid size
+   * if range of storeFiles contains too many elements, method removes excess storeFiles
+   * @param start - begin index of range of storeFiles
+   * @param end - index after last index of range of storeFiles
+   * @return index after last index of range with valid size
    */
-  private StoreFileCollection removeExcessFiles(StoreFileCollection storeFiles) {
-    final long excess = storeFiles.size() - this.compactionConfiguration.getCompactionMaxFiles();
-    if (excess > 0) {
-      storeFiles = storeFiles
-          .subList(0, (int) this.compactionConfiguration.getCompactionMaxFiles());
+  private int removeExcessFiles(final int start, final int end) {
+    final long maxFiles = this.compactionConfiguration.getCompactionMaxFiles();
+    if (end - start > maxFiles) {
+      return (int) (start + maxFiles);
     }
-    return storeFiles;
+    return end;
   }
 }
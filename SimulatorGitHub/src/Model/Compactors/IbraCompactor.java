@@ -50,12 +50,13 @@ public class IbraCompactor extends AbstractCompactor {
      * sequence [start, i] can be taken (StoreFilesCollection elements are sorted 
      * by decreasing elements' bytesSize)
      */
+    final long[] sizes = storeFiles.getBytesSizes();
     int bestStart = 0;
     int bestCount = 0;
-    for (int start = 0; start < storeFiles.size(); start++) {
+    for (int start = 0; start < sizes.length; start++) {
       int count = 1;
-      for (int i = start + 1; i < storeFiles.size(); i++) {
-        if (this.isok(storeFiles, start, i)) {
+      for (int i = start + 1; i < sizes.length; i++) {
+        if (this.isok(sizes, start, i)) {
           count++;
         } else {
           break;
@@ -67,28 +68,23 @@ public class IbraCompactor extends AbstractCompactor {
       }
     }
 
-    final StoreFileCollection toCompact = new StoreFileCollection();
-    for (int i = bestStart; i < bestStart + bestCount; i++) {
-      toCompact.add(storeFiles.get(i));
-    }
-
-    if (toCompact.size() < this.compactionConfiguration.getMinFilesToCompact()) {
+    if (bestCount < this.compactionConfiguration.getMinFilesToCompact()) {
       return new StoreFileCollection();
     }
 
-    return toCompact;
+    return storeFiles.subList(bestStart, bestStart + bestCount);
   }
 
   /**
    * method checks that files [start, i] have similar size
-   * @param storeFiles - all storeFiles of Store
+   * @param sizes - sizes of all storeFiles of Store
    * @param start - start index of range
    * @param i - end index of range
    * @return if files [start, i] have similar size
    */
-  private boolean isok(final StoreFileCollection storeFiles, final int start, final int i) {
-    final long a = storeFiles.get(start).getBytesSize();
-    final long b = storeFiles.get(i).getBytesSize();
+  private boolean isok(final long[] sizes, final int start, final int i) {
+    final long a = sizes[start];
+    final long b = sizes[i];
     return b * this.compactionConfiguration.getFilesSimilarityRatio() > a;
   }
 
@@ -45,8 +45,9 @@ public class LevelBasedCompactor extends AbstractCompactor {
    */
   @Override
   protected StoreFileCollection selectFilesToCompact(final StoreFileCollection storeFiles) {
-    long defFileSize = Configuration.INSTANCE.getMemstoreBytesSize()
-        / Configuration.INSTANCE.COMPRESSION_RATIO;
+    final Configuration configuration = this.getSimulator().getConfiguration();
+    long defFileSize = configuration.getMemstoreBytesSize() / configuration.COMPRESSION_RATIO;
+    final long[] sizes = storeFiles.getBytesSizes();
 
     for (int level = 0; level < this.compactionConfiguration.getLevelsCount(); level++) {
       final long levelByteSize = this.getLevelSize(level, defFileSize);
@@ -54,14 +55,14 @@ public class LevelBasedCompactor extends AbstractCompactor {
 
       int start = -1, end = -1;
 
-      for (int i = 0; i < storeFiles.size(); i++) {
-        if (this.isAboutTheSame(fileSize, storeFiles.get(i).getBytesSize())) {
+      for (int i = 0; i < sizes.length; i++) {
+        if (this.isAboutTheSame(fileSize, sizes[i])) {
           start = i;
           break;
         }
       }
-      for (int i = storeFiles.size() - 1; i >= 0; i--) {
-        if (this.isAboutTheSame(fileSize, storeFiles.get(i).getBytesSize())) {
+      for (int i = sizes.length - 1; i >= 0; i--) {
+        if (this.isAboutTheSame(fileSize, sizes[i])) {
           end = i;
           break;
         }
@@ -70,7 +71,7 @@ public class LevelBasedCompactor extends AbstractCompactor {
       if (start != -1 && end != -1) {
         long size = 0;
         for (int i = start; i <= end; i++) {
-          size += storeFiles.get(i).getBytesSize();
+          size += sizes[i];
         }
         if (size > levelByteSize) {
           return storeFiles.subList(start, end + 1);
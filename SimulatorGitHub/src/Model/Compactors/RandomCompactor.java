@@ -7,7 +7,6 @@ import Model.Compactors.CompactionConfigurations.RandomCompactionConfiguration;
 import Model.HBaseElements.Store;
 import Model.HBaseElements.StoreFileCollection;
 import Tools.HDFS;
-import Tools.RandomGenerator;
 
 /**
  * very simple random compaction algorithm
@@ -48,7 +47,7 @@ public class RandomCompactor extends AbstractCompactor {
 
     final StoreFileCollection toCompact = new StoreFileCollection();
     while (toCompact.size() < this.compactionConfiguration.getFilesToCompact()) {
-      int id = RandomGenerator.getRandomInt(storeFiles.size() - toCompact.size());
+      int id = this.getRandomGenerator().getRandomInt(storeFiles.size() - toCompact.size());
       for (int i = 0; i < storeFiles.size(); i++) {
         if (!toCompact.contains(storeFiles.get(i))) {
           id--;
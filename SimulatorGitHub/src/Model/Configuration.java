@@ -6,13 +6,9 @@ import java.util.TreeMap;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import GUI.ConfigurationFrames.AbstractConfigurationFrame;
-import GUI.ConfigurationFrames.ConfigurationFrame;
-
 /**
  * Class Configuration describes general configuration of HBase (shown in gui in ConfigurationFrame on left side)
- * This class is Singleton
- * configuration values are changed by ConfigurationFrame
+ * INSTANCE is configuration changed by ConfigurationFrame, each Simulator works with its own copy
  * 
  * To add new configuration value: 
  * 1) add private field with public getter and setter 
@@ -24,22 +20,31 @@ public class Configuration extends AbstractConfiguration {
   private static final Log LOG = LogFactory.getLog(Configuration.class.getName());
 
   /**
-   * instance of Singleton
+   * configuration changed by ConfigurationFrame
    */
   public static final Configuration INSTANCE = new Configuration();
 
-  private Configuration() {
+  /**
+   * creates configuration with default values
+   */
+  public Configuration() {
   }
 
   /**
-   * milliseconds per day
+   * @return copy of this configuration
    */
-  public static final long MS_PER_DAY = 24L * 3600L * 1000L;
+  public Configuration copy() {
+    final Configuration res = new Configuration();
+    for (final Map.Entry<String, GetMethod> field : this.getGetFields().entrySet()) {
+      res.set(field.getKey(), field.getValue().get());
+    }
+    return res;
+  }
 
   /**
-   * time gap between consecutive logs
+   * milliseconds per day
    */
-  public final long SLEEP_LOG_TIME = 1000;
+  public static final long MS_PER_DAY = 24L * 3600L * 1000L;
 
   /**
    * compression ratio - when memstore flush occurs we take memstore, compress it and write to
@@ -48,9 +53,9 @@ public class Configuration extends AbstractConfiguration {
   public final long COMPRESSION_RATIO = 10;
 
   /**
-   * time gap between consecutive chart updates
+   * simulated time gap(ms) between consecutive chart updates
    */
-  public final long CHARTS_UPDATE_GAP = 1000;
+  public final long CHARTS_UPDATE_GAP = 10000000;
 
   /**
    * maximal amount of compaction algorithms to simulate
@@ -84,6 +89,13 @@ public class Configuration extends AbstractConfiguration {
    */
   private double keyValueTTLJitter = 0.3;
 
+  /**
+   * KeyValue TTL bucket(ms) - KeyValuePacks created within this time gap are kept together as one
+   * bucket and TTL expiry is applied to the whole bucket analytically, so merge cost doesn't depend on
+   * amount of KeyValuePacks. 0 means that each KeyValuePack is kept and expired separately
+   */
+  private long keyValueTTLBucket = Configuration.MS_PER_DAY / 24;
+
   /**
    * KeyValue bytes size - average size of KeyValue in HBase
    */
@@ -106,13 +118,188 @@ public class Configuration extends AbstractConfiguration {
   private long HDFSWriteBytesPerSecond = 50L * 1024L * 1024L;
 
   /**
-   * xFaster - speed coefficient. makes simulator simulate everything xFaster times faster
+   * Flush IO weight - share of HDFS bandwidth that flush gets relative to other transfers
+   * going at the same time. Flush > small compaction > large compaction > major compaction
+   */
+  private double flushIOWeight = 8;
+
+  /**
+   * Small compaction IO weight - share of HDFS bandwidth of small compaction
+   */
+  private double smallCompactionIOWeight = 4;
+
+  /**
+   * Large compaction IO weight - share of HDFS bandwidth of large compaction
+   */
+  private double largeCompactionIOWeight = 2;
+
+  /**
+   * Major compaction IO weight - share of HDFS bandwidth of major compaction
+   */
+  private double majorCompactionIOWeight = 1;
+
+  /**
+   * Stores per HDFS - stores are split into groups of this size in order of columnFamily, stores of
+   * one group share bandwidth of one HDFS and compaction threads, like stores of one region server
+   * share its disks and thread pool.
+   * 1 means that each store is in separate HBase cluster, 0 means that all stores share one HDFS
+   */
+  private long storesPerHDFS = 1;
+
+  /**
+   * Large compaction threads - amount of compactions of large queue that can go at the same time,
+   * threads are shared by stores of one region server (see storesPerHDFS)
+   */
+  private long largeCompactionThreads = 1;
+
+  /**
+   * Small compaction threads - amount of compactions of small queue that can go at the same time
+   */
+  private long smallCompactionThreads = 1;
+
+  /**
+   * Blocking store files - store with so many storeFiles is under pressure: queued compactions of
+   * stores with less (blockingStoreFiles - storeFiles count) are started first
+   */
+  private long blockingStoreFiles = 7;
+
+  /**
+   * Blocking wait time(ms) - flush of store with at least blockingStoreFiles storeFiles is delayed
+   * till compactions bring their count down, but not longer than this time. 0 means flush is never
+   * delayed
+   */
+  private long blockingWaitTime = 0;
+
+  /**
+   * Memstore block multiplier - puts to store are blocked while its memstore together with flushes in
+   * progress is at least memstoreBlockMultiplier * memstoreBytesSize. 0 means puts are never blocked
+   */
+  private long memstoreBlockMultiplier = 0;
+
+  /**
+   * Max pending puts - blocked puts wait in queue of their store, when all stores have so many puts
+   * waiting, client stops sending puts till some of them are done
+   */
+  private long maxPendingPuts = 1000;
+
+  /**
+   * Stability window(ms) - length of sliding window of simulated time that divergence and convergence of
+   * simulation are detected over, simulation is ended early when it is found diverged or converged.
+   * 0 means simulation always goes till Simulation time
+   */
+  private long stabilityWindow = 0;
+
+  /**
+   * Divergence threshold - simulation is diverged when in some store during stability window both
+   * compaction backlog (bytes of storeFiles queued or being compacted) grows by more than this part
+   * of bytes flushed and storeFiles count grows by more than this part of flushes count. 0 means
+   * divergence is not detected
+   */
+  private double divergenceThreshold = 0.2;
+
+  /**
+   * Convergence tolerance - simulation is converged when write amplification and read amplification
+   * of each store over stability window differ from ones over previous stability window by at most
+   * this part. 0 means convergence is not detected
+   */
+  private double convergenceTolerance = 0;
+
+  /**
+   * Metrics window(ms) - write amplification and read amplification sent to charts and output files
+   * are measured over the last finished window of this length: compaction writes / flush writes during
+   * window and time-weighted average storeFiles count, so warm-up doesn't affect steady-state values.
+   * 0 means write amplification is cumulative since start and read amplification is current
+   */
+  private long metricsWindow = 0;
+
+  /**
+   * Chart max points - maximal amount of points drawn for each graph of charts, older points are
+   * merged into buckets of growing size keeping their minimum and maximum
+   */
+  private long chartMaxPoints = 2000;
+
+  /**
+   * Identical workload - if true, each put is put to every store instead of random one, so that
+   * stores with different compaction algorithms are compared on the same put stream. Each store
+   * still flushes every "Gap between flushes(ms)"
+   */
+  private boolean identicalWorkload = false;
+
+  /**
+   * Diurnal amplitude - ingest rate follows daily cycle: it is multiplied by
+   * 1 + amplitude * cos(2 * pi * (time - peak) / day), so amplitude is in [0, 1], 0 means no cycle
+   */
+  private double diurnalAmplitude = 0;
+
+  /**
+   * Diurnal peak(ms) - time of day when ingest rate of daily cycle is the highest
+   */
+  private long diurnalPeak = Configuration.MS_PER_DAY / 2;
+
+  /**
+   * Burst gap(ms) - mean time between bursts of ingest, time from end of burst to start of next
+   * one is exponentially distributed, so bursts come as Poisson process. 0 means no bursts
+   */
+  private long burstGap = 0;
+
+  /**
+   * Burst duration(ms) - length of each burst of ingest
+   */
+  private long burstDuration = 3600000;
+
+  /**
+   * Burst rate multiplier - ingest rate is multiplied by it during burst
+   */
+  private double burstMultiplier = 4;
+
+  /**
+   * Rate file - name of CSV file with rate multipliers, empty if it is not used. Each line is
+   * "time(ms),multiplier" or "time(ms),multiplier of store 0,multiplier of store 1,...", lines go
+   * in order of time and each multiplier holds till the next line. Lines starting with '#' are
+   * skipped
+   */
+  private String rateFile = "";
+
+  /**
+   * Rate file period(ms) - if positive, rate file is repeated with this period, for example daily
+   * profile with period of one day
+   */
+  private long rateFilePeriod = 0;
+
+  /**
+   * Column family weights - comma separated relative ingest rates of stores, for example "1,1,4"
+   * for hot third store, empty means equal rates. Total ingest rate doesn't depend on weights
+   */
+  private String columnFamilyWeights = "";
+
+  /**
+   * Flush trace file - name of trace of real flushes, empty if it is not used. Each line is
+   * "time(ms),store,flushed bytes" in order of time, store is column family index, times are
+   * shifted so that the first flush is at 0. Flushes are replayed instead of generated puts: each
+   * one is written to HDFS as storeFile of that size without memstore. File is read while
+   * simulation goes, so traces of any length take no memory. Lines starting with '#' are skipped
+   */
+  private String flushTraceFile = "";
+
+  /**
+   * xFaster - pacing coefficient. Simulation is driven by virtual clock, so results don't depend on it,
+   * it only slows simulation down to be xFaster times faster than real time, so that charts can be watched.
    * for example default value here is 10000.
-   * That means that Simulator simulates 1 year of HBase work in 1/10000 years (it is 50 minutes) 
-   * this value is recommended to be the same as flushGap/(compactionAlgosCount*4) or less.
+   * That means that Simulator shows 1 year of HBase work in 1/10000 years (it is 50 minutes) 
+   * 0 means no pacing - simulate as fast as CPU allows
    */
   private long xFaster = 10000;
 
+  /**
+   * Simulation time(ms) - simulated time after which simulation stops. 0 means simulate till it is stopped
+   */
+  private long simulationTime = 0;
+
+  /**
+   * Random seed - seed for RandomGenerator, runs with the same seed and configurations give the same results
+   */
+  private long randomSeed = 1;
+
   /**
    * size of KeyValuePack. KeyValuePack is some amount of KeyValues that we send to HBase as one
    * object during put, considering as we are sending a bunch of KeyValues
@@ -127,18 +314,6 @@ public class Configuration extends AbstractConfiguration {
     return this.keyValueTTL != -1;
   }
 
-  /**
-   * method return ConfigurationFrame for changing this configuration
-   * @param title - main title for ConfigurationFrame
-   * @param getFields - get fields map of compaction configuration
-   * @param setFields - get fields map of compaction configuration
-   */
-  @Override
-  protected AbstractConfigurationFrame getConfigurationFrame(final String title,
-      final Map<String, GetMethod> getFields, final Map<String, SetMethod> setFields) {
-    return new ConfigurationFrame(title, getFields, setFields);
-  }
-
   /**
    * fill getFields map
    */
@@ -156,6 +331,35 @@ public class Configuration extends AbstractConfiguration {
     res.put("Write bytes per second to HDFS",  new GetMethod() { @Override public String get() {return Long  .toString(Configuration.this.getHDFSWriteBytesPerSecond());} });
     res.put("xFaster",                         new GetMethod() { @Override public String get() {return Long  .toString(Configuration.this.getxFaster                ());} });
     res.put("KeyValues count per put",         new GetMethod() { @Override public String get() {return Long  .toString(Configuration.this.getKvsPerPut              ());} });
+    res.put("Random seed",                     new GetMethod() { @Override public String get() {return Long  .toString(Configuration.this.getRandomSeed             ());} });
+    res.put("Simulation time(ms)",             new GetMethod() { @Override public String get() {return Long  .toString(Configuration.this.getSimulationTime         ());} });
+    res.put("KeyValue TTL bucket(ms)",         new GetMethod() { @Override public String get() {return Long  .toString(Configuration.this.getKeyValueTTLBucket      ());} });
+    res.put("Flush IO weight",                 new GetMethod() { @Override public String get() {return Double.toString(Configuration.this.getFlushIOWeight          ());} });
+    res.put("Small compaction IO weight",      new GetMethod() { @Override public String get() {return Double.toString(Configuration.this.getSmallCompactionIOWeight());} });
+    res.put("Large compaction IO weight",      new GetMethod() { @Override public String get() {return Double.toString(Configuration.this.getLargeCompactionIOWeight());} });
+    res.put("Major compaction IO weight",      new GetMethod() { @Override public String get() {return Double.toString(Configuration.this.getMajorCompactionIOWeight());} });
+    res.put("Stores per HDFS",                 new GetMethod() { @Override public String get() {return Long  .toString(Configuration.this.getStoresPerHDFS          ());} });
+    res.put("Large compaction threads",        new GetMethod() { @Override public String get() {return Long  .toString(Configuration.this.getLargeCompactionThreads ());} });
+    res.put("Small compaction threads",        new GetMethod() { @Override public String get() {return Long  .toString(Configuration.this.getSmallCompactionThreads ());} });
+    res.put("Blocking store files",            new GetMethod() { @Override public String get() {return Long  .toString(Configuration.this.getBlockingStoreFiles     ());} });
+    res.put("Blocking wait time(ms)",          new GetMethod() { @Override public String get() {return Long  .toString(Configuration.this.getBlockingWaitTime       ());} });
+    res.put("Memstore block multiplier",       new GetMethod() { @Override public String get() {return Long  .toString(Configuration.this.getMemstoreBlockMultiplier());} });
+    res.put("Max pending puts",                new GetMethod() { @Override public String get() {return Long  .toString(Configuration.this.getMaxPendingPuts         ());} });
+    res.put("Stability window(ms)",            new GetMethod() { @Override public String get() {return Long  .toString(Configuration.this.getStabilityWindow        ());} });
+    res.put("Divergence threshold",            new GetMethod() { @Override public String get() {return Double.toString(Configuration.this.getDivergenceThreshold    ());} });
+    res.put("Convergence tolerance",           new GetMethod() { @Override public String get() {return Double.toString(Configuration.this.getConvergenceTolerance   ());} });
+    res.put("Metrics window(ms)",              new GetMethod() { @Override public String get() {return Long  .toString(Configuration.this.getMetricsWindow          ());} });
+    res.put("Chart max points",                new GetMethod() { @Override public String get() {return Long  .toString(Configuration.this.getChartMaxPoints         ());} });
+    res.put("Identical workload",              new GetMethod() { @Override public String get() {return Boolean.toString(Configuration.this.isIdenticalWorkload      ());} });
+    res.put("Diurnal amplitude",               new GetMethod() { @Override public String get() {return Double.toString(Configuration.this.getDiurnalAmplitude       ());} });
+    res.put("Diurnal peak(ms)",                new GetMethod() { @Override public String get() {return Long  .toString(Configuration.this.getDiurnalPeak            ());} });
+    res.put("Burst gap(ms)",                   new GetMethod() { @Override public String get() {return Long  .toString(Configuration.this.getBurstGap               ());} });
+    res.put("Burst duration(ms)",              new GetMethod() { @Override public String get() {return Long  .toString(Configuration.this.getBurstDuration          ());} });
+    res.put("Burst rate multiplier",           new GetMethod() { @Override public String get() {return Double.toString(Configuration.this.getBurstMultiplier        ());} });
+    res.put("Rate file",                       new GetMethod() { @Override public String get() {return Configuration.this.getRateFile();} });
+    res.put("Rate file period(ms)",            new GetMethod() { @Override public String get() {return Long  .toString(Configuration.this.getRateFilePeriod         ());} });
+    res.put("Column family weights",           new GetMethod() { @Override public String get() {return Configuration.this.getColumnFamilyWeights();} });
+    res.put("Flush trace file",                new GetMethod() { @Override public String get() {return Configuration.this.getFlushTraceFile();} });
     return res;
   }// @formatter:on
 
@@ -176,6 +380,35 @@ public class Configuration extends AbstractConfiguration {
     res.put("Write bytes per second to HDFS",  new SetMethod() { @Override public void set(String value) {Configuration.this.setHDFSWriteBytesPerSecond(value);} });
     res.put("xFaster",                         new SetMethod() { @Override public void set(String value) {Configuration.this.setxFaster                (value);} });
     res.put("KeyValues count per put",         new SetMethod() { @Override public void set(String value) {Configuration.this.setKvsPerPut              (value);} });
+    res.put("Random seed",                     new SetMethod() { @Override public void set(String value) {Configuration.this.setRandomSeed             (value);} });
+    res.put("Simulation time(ms)",             new SetMethod() { @Override public void set(String value) {Configuration.this.setSimulationTime         (value);} });
+    res.put("KeyValue TTL bucket(ms)",         new SetMethod() { @Override public void set(String value) {Configuration.this.setKeyValueTTLBucket      (value);} });
+    res.put("Flush IO weight",                 new SetMethod() { @Override public void set(String value) {Configuration.this.setFlushIOWeight          (value);} });
+    res.put("Small compaction IO weight",      new SetMethod() { @Override public void set(String value) {Configuration.this.setSmallCompactionIOWeight(value);} });
+    res.put("Large compaction IO weight",      new SetMethod() { @Override public void set(String value) {Configuration.this.setLargeCompactionIOWeight(value);} });
+    res.put("Major compaction IO weight",      new SetMethod() { @Override public void set(String value) {Configuration.this.setMajorCompactionIOWeight(value);} });
+    res.put("Stores per HDFS",                 new SetMethod() { @Override public void set(String value) {Configuration.this.setStoresPerHDFS          (value);} });
+    res.put("Large compaction threads",        new SetMethod() { @Override public void set(String value) {Configuration.this.setLargeCompactionThreads (value);} });
+    res.put("Small compaction threads",        new SetMethod() { @Override public void set(String value) {Configuration.this.setSmallCompactionThreads (value);} });
+    res.put("Blocking store files",            new SetMethod() { @Override public void set(String value) {Configuration.this.setBlockingStoreFiles     (value);} });
+    res.put("Blocking wait time(ms)",          new SetMethod() { @Override public void set(String value) {Configuration.this.setBlockingWaitTime       (value);} });
+    res.put("Memstore block multiplier",       new SetMethod() { @Override public void set(String value) {Configuration.this.setMemstoreBlockMultiplier(value);} });
+    res.put("Max pending puts",                new SetMethod() { @Override public void set(String value) {Configuration.this.setMaxPendingPuts         (value);} });
+    res.put("Stability window(ms)",            new SetMethod() { @Override public void set(String value) {Configuration.this.setStabilityWindow        (value);} });
+    res.put("Divergence threshold",            new SetMethod() { @Override public void set(String value) {Configuration.this.setDivergenceThreshold    (value);} });
+    res.put("Convergence tolerance",           new SetMethod() { @Override public void set(String value) {Configuration.this.setConvergenceTolerance   (value);} });
+    res.put("Metrics window(ms)",              new SetMethod() { @Override public void set(String value) {Configuration.this.setMetricsWindow          (value);} });
+    res.put("Chart max points",                new SetMethod() { @Override public void set(String value) {Configuration.this.setChartMaxPoints         (value);} });
+    res.put("Identical workload",              new SetMethod() { @Override public void set(String value) {Configuration.this.setIdenticalWorkload      (value);} });
+    res.put("Diurnal amplitude",               new SetMethod() { @Override public void set(String value) {Configuration.this.setDiurnalAmplitude       (value);} });
+    res.put("Diurnal peak(ms)",                new SetMethod() { @Override public void set(String value) {Configuration.this.setDiurnalPeak            (value);} });
+    res.put("Burst gap(ms)",                   new SetMethod() { @Override public void set(String value) {Configuration.this.setBurstGap               (value);} });
+    res.put("Burst duration(ms)",              new SetMethod() { @Override public void set(String value) {Configuration.this.setBurstDuration          (value);} });
+    res.put("Burst rate multiplier",           new SetMethod() { @Override public void set(String value) {Configuration.this.setBurstMultiplier        (value);} });
+    res.put("Rate file",                       new SetMethod() { @Override public void set(String value) {Configuration.this.setRateFile               (value);} });
+    res.put("Rate file period(ms)",            new SetMethod() { @Override public void set(String value) {Configuration.this.setRateFilePeriod         (value);} });
+    res.put("Column family weights",           new SetMethod() { @Override public void set(String value) {Configuration.this.setColumnFamilyWeights    (value);} });
+    res.put("Flush trace file",                new SetMethod() { @Override public void set(String value) {Configuration.this.setFlushTraceFile         (value);} });
     return res;
   }// @formatter:on
 
@@ -226,6 +459,122 @@ public class Configuration extends AbstractConfiguration {
     return this.kvsPerPut;
   }
 
+  public long getRandomSeed() {
+    return this.randomSeed;
+  }
+
+  public long getSimulationTime() {
+    return this.simulationTime;
+  }
+
+  public long getKeyValueTTLBucket() {
+    return this.keyValueTTLBucket;
+  }
+
+  public double getFlushIOWeight() {
+    return this.flushIOWeight;
+  }
+
+  public double getSmallCompactionIOWeight() {
+    return this.smallCompactionIOWeight;
+  }
+
+  public double getLargeCompactionIOWeight() {
+    return this.largeCompactionIOWeight;
+  }
+
+  public double getMajorCompactionIOWeight() {
+    return this.majorCompactionIOWeight;
+  }
+
+  public long getStoresPerHDFS() {
+    return this.storesPerHDFS;
+  }
+
+  public long getLargeCompactionThreads() {
+    return this.largeCompactionThreads;
+  }
+
+  public long getSmallCompactionThreads() {
+    return this.smallCompactionThreads;
+  }
+
+  public long getBlockingStoreFiles() {
+    return this.blockingStoreFiles;
+  }
+
+  public long getBlockingWaitTime() {
+    return this.blockingWaitTime;
+  }
+
+  public long getMemstoreBlockMultiplier() {
+    return this.memstoreBlockMultiplier;
+  }
+
+  public long getMaxPendingPuts() {
+    return this.maxPendingPuts;
+  }
+
+  public long getStabilityWindow() {
+    return this.stabilityWindow;
+  }
+
+  public double getDivergenceThreshold() {
+    return this.divergenceThreshold;
+  }
+
+  public double getConvergenceTolerance() {
+    return this.convergenceTolerance;
+  }
+
+  public long getMetricsWindow() {
+    return this.metricsWindow;
+  }
+
+  public long getChartMaxPoints() {
+    return this.chartMaxPoints;
+  }
+
+  public boolean isIdenticalWorkload() {
+    return this.identicalWorkload;
+  }
+
+  public double getDiurnalAmplitude() {
+    return this.diurnalAmplitude;
+  }
+
+  public long getDiurnalPeak() {
+    return this.diurnalPeak;
+  }
+
+  public long getBurstGap() {
+    return this.burstGap;
+  }
+
+  public long getBurstDuration() {
+    return this.burstDuration;
+  }
+
+  public double getBurstMultiplier() {
+    return this.burstMultiplier;
+  }
+
+  public String getRateFile() {
+    return this.rateFile;
+  }
+
+  public long getRateFilePeriod() {
+    return this.rateFilePeriod;
+  }
+
+  public String getColumnFamilyWeights() {
+    return this.columnFamilyWeights;
+  }
+
+  public String getFlushTraceFile() {
+    return this.flushTraceFile;
+  }
+
   // ===================================================================
   // ============================</GETTERS>=============================
   // ===================================================================
@@ -276,6 +625,136 @@ public class Configuration extends AbstractConfiguration {
   public void setKvsPerPut(String kvsPerPut) {
     this.kvsPerPut = Long.parseLong(kvsPerPut);
   }
+
+  public void setRandomSeed(String randomSeed) {
+    this.randomSeed = Long.parseLong(randomSeed);
+  }
+
+  public void setSimulationTime(String simulationTime) {
+    this.simulationTime = Long.parseLong(simulationTime);
+  }
+
+  public void setKeyValueTTLBucket(String keyValueTTLBucket) {
+    this.keyValueTTLBucket = Long.parseLong(keyValueTTLBucket);
+  }
+
+  public void setFlushIOWeight(String flushIOWeight) {
+    this.flushIOWeight = Configuration.parseIOWeight(flushIOWeight);
+  }
+
+  public void setSmallCompactionIOWeight(String smallCompactionIOWeight) {
+    this.smallCompactionIOWeight = Configuration.parseIOWeight(smallCompactionIOWeight);
+  }
+
+  public void setLargeCompactionIOWeight(String largeCompactionIOWeight) {
+    this.largeCompactionIOWeight = Configuration.parseIOWeight(largeCompactionIOWeight);
+  }
+
+  public void setMajorCompactionIOWeight(String majorCompactionIOWeight) {
+    this.majorCompactionIOWeight = Configuration.parseIOWeight(majorCompactionIOWeight);
+  }
+
+  /**
+   * @param weight - IO weight as string
+   * @return IO weight
+   * @throws NumberFormatException if weight is not positive number, because transfer with zero
+   *           weight never finishes
+   */
+  private static double parseIOWeight(String weight) {
+    final double res = Double.parseDouble(weight);
+    if (!(res > 0) || Double.isInfinite(res)) {
+      throw new NumberFormatException("IO weight must be positive: " + weight);
+    }
+    return res;
+  }
+
+  public void setStoresPerHDFS(String storesPerHDFS) {
+    this.storesPerHDFS = Long.parseLong(storesPerHDFS);
+  }
+
+  public void setLargeCompactionThreads(String largeCompactionThreads) {
+    this.largeCompactionThreads = Long.parseLong(largeCompactionThreads);
+  }
+
+  public void setSmallCompactionThreads(String smallCompactionThreads) {
+    this.smallCompactionThreads = Long.parseLong(smallCompactionThreads);
+  }
+
+  public void setBlockingStoreFiles(String blockingStoreFiles) {
+    this.blockingStoreFiles = Long.parseLong(blockingStoreFiles);
+  }
+
+  public void setBlockingWaitTime(String blockingWaitTime) {
+    this.blockingWaitTime = Long.parseLong(blockingWaitTime);
+  }
+
+  public void setMemstoreBlockMultiplier(String memstoreBlockMultiplier) {
+    this.memstoreBlockMultiplier = Long.parseLong(memstoreBlockMultiplier);
+  }
+
+  public void setMaxPendingPuts(String maxPendingPuts) {
+    this.maxPendingPuts = Long.parseLong(maxPendingPuts);
+  }
+
+  public void setStabilityWindow(String stabilityWindow) {
+    this.stabilityWindow = Long.parseLong(stabilityWindow);
+  }
+
+  public void setDivergenceThreshold(String divergenceThreshold) {
+    this.divergenceThreshold = Double.parseDouble(divergenceThreshold);
+  }
+
+  public void setConvergenceTolerance(String convergenceTolerance) {
+    this.convergenceTolerance = Double.parseDouble(convergenceTolerance);
+  }
+
+  public void setMetricsWindow(String metricsWindow) {
+    this.metricsWindow = Long.parseLong(metricsWindow);
+  }
+
+  public void setChartMaxPoints(String chartMaxPoints) {
+    this.chartMaxPoints = Long.parseLong(chartMaxPoints);
+  }
+
+  public void setIdenticalWorkload(String identicalWorkload) {
+    this.identicalWorkload = Boolean.parseBoolean(identicalWorkload);
+  }
+
+  public void setDiurnalAmplitude(String diurnalAmplitude) {
+    this.diurnalAmplitude = Double.parseDouble(diurnalAmplitude);
+  }
+
+  public void setDiurnalPeak(String diurnalPeak) {
+    this.diurnalPeak = Long.parseLong(diurnalPeak);
+  }
+
+  public void setBurstGap(String burstGap) {
+    this.burstGap = Long.parseLong(burstGap);
+  }
+
+  public void setBurstDuration(String burstDuration) {
+    this.burstDuration = Long.parseLong(burstDuration);
+  }
+
+  public void setBurstMultiplier(String burstMultiplier) {
+    this.burstMultiplier = Double.parseDouble(burstMultiplier);
+  }
+
+  public void setRateFile(String rateFile) {
+    this.rateFile = rateFile;
+  }
+
+  public void setRateFilePeriod(String rateFilePeriod) {
+    this.rateFilePeriod = Long.parseLong(rateFilePeriod);
+  }
+
+  public void setColumnFamilyWeights(String columnFamilyWeights) {
+    this.columnFamilyWeights = columnFamilyWeights;
+  }
+
+  public void setFlushTraceFile(String flushTraceFile) {
+    this.flushTraceFile = flushTraceFile;
+  }
   // ===================================================================
   // ============================</SETTERS>=============================
   // ===================================================================
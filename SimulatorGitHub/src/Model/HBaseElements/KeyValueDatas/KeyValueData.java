@@ -1,11 +1,12 @@
 package Model.HBaseElements.KeyValueDatas;
 
-import java.util.List;
+import java.util.Arrays;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import Model.Configuration;
+import Model.Simulator;
+import Tools.RandomGenerator;
 
 /**
  * KeyValueData - emulates collection of KeyValues
@@ -15,29 +16,60 @@ public abstract class KeyValueData {
 
   private static final Log LOG = LogFactory.getLog(KeyValueData.class.getName());
 
+  /**
+   * simulation this KeyValueData belongs to
+   */
+  protected final Simulator simulator;
+
+  /**
+   * random stream of store this KeyValueData belongs to, used for TTL checks
+   */
+  protected final RandomGenerator randomGenerator;
+
   /**
    * total size of this KeyValue collection
    */
   protected long bytesSize;
 
   /**
-   * for each KeyValuePack we store its create time to know when its TLL expires
+   * for each KeyValuePack we store its create time to know when its TLL expires.
+   * KeyValuePacks are stored in primitive columns, [0, keyValuePacksCount) are used
    */
-  protected List<Long> keyValuePacksCreateTime;
+  protected long[] keyValuePacksCreateTime;
 
   /**
    * for each KeyValuePack we store its size
    */
-  protected List<Long> keyValuePackByteSizes;
+  protected long[] keyValuePackByteSizes;
+
+  /**
+   * amount of KeyValuePacks in columns
+   */
+  protected int keyValuePacksCount;
+
+  /**
+   * @param simulator - simulation this KeyValueData belongs to
+   * @param randomGenerator - random stream of store this KeyValueData belongs to
+   */
+  protected KeyValueData(final Simulator simulator, final RandomGenerator randomGenerator) {
+    this.simulator = simulator;
+    this.randomGenerator = randomGenerator;
+  }
 
   /**
    * creates empty KeyValueData
+   * @param simulator - simulation this KeyValueData belongs to
+   * @param randomGenerator - random stream of store this KeyValueData belongs to
    */
-  public static KeyValueData getKeyValueData() {
-    if (Configuration.INSTANCE.isKeyValuesTTLEnabled()) {
-      return new KeyValueDataWithTTL();
+  public static KeyValueData getKeyValueData(final Simulator simulator,
+      final RandomGenerator randomGenerator) {
+    if (simulator.getConfiguration().isKeyValuesTTLEnabled()) {
+      if (simulator.getConfiguration().getKeyValueTTLBucket() > 0) {
+        return new KeyValueDataWithTTLBuckets(simulator, randomGenerator);
+      }
+      return new KeyValueDataWithTTL(simulator, randomGenerator);
     } else {
-      return new KeyValueDataWithoutTTL();
+      return new KeyValueDataWithoutTTL(simulator, randomGenerator);
     }
   }
 
@@ -45,17 +77,45 @@ public abstract class KeyValueData {
    * creates KeyValueData as clone as keyValueData
    */
   public static KeyValueData getKeyValueData(final KeyValueData keyValueData) {
-    if (Configuration.INSTANCE.isKeyValuesTTLEnabled()) {
+    if (keyValueData instanceof KeyValueDataWithTTLBuckets) {
+      return new KeyValueDataWithTTLBuckets((KeyValueDataWithTTLBuckets) keyValueData);
+    } else if (keyValueData instanceof KeyValueDataWithTTL) {
       return new KeyValueDataWithTTL(keyValueData);
     } else {
       return new KeyValueDataWithoutTTL(keyValueData);
     }
   }
 
+  /**
+   * makes sure that columns can hold capacity KeyValuePacks. Columns grow by half, so that
+   * appending one by one takes amortized O(1)
+   * @param capacity - required capacity
+   */
+  protected void ensureCapacity(final int capacity) {
+    if (capacity <= this.keyValuePacksCreateTime.length) {
+      return;
+    }
+    final int newCapacity = Math.max(capacity, this.keyValuePacksCreateTime.length * 3 / 2 + 1);
+    this.keyValuePacksCreateTime = Arrays.copyOf(this.keyValuePacksCreateTime, newCapacity);
+    this.keyValuePackByteSizes = Arrays.copyOf(this.keyValuePackByteSizes, newCapacity);
+  }
+
+  /**
+   * appends KeyValuePack to columns, capacity must be ensured
+   * @param createTime - create time of KeyValuePack
+   * @param byteSize - size of KeyValuePack
+   */
+  protected void append(final long createTime, final long byteSize) {
+    this.keyValuePacksCreateTime[this.keyValuePacksCount] = createTime;
+    this.keyValuePackByteSizes[this.keyValuePacksCount] = byteSize;
+    this.keyValuePacksCount++;
+  }
+
   /**
    * adds KeyValuePack to KeyValueData
+   * @param kvpSize - size of KeyValuePack
    */
-  public abstract void addKeyValuePack();
+  public abstract void addKeyValuePack(final long kvpSize);
 
   /**
    * compressing data before flush
@@ -80,4 +140,12 @@ public abstract class KeyValueData {
   public long getBytesSize() {
     return this.bytesSize;
   }
+
+  /**
+   * @return expected bytes of KeyValues whose TTL is not expired at current simulated time - they
+   *         would survive compaction now. Without TTL all bytes are live
+   */
+  public double getLiveBytesSize() {
+    return this.bytesSize;
+  }
 }
@@ -1,11 +1,11 @@
 package Model.HBaseElements.KeyValueDatas;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import Model.Configuration;
+import Model.Simulator;
 import Tools.RandomGenerator;
 
 /**
@@ -16,35 +16,43 @@ public class KeyValueDataWithTTL extends KeyValueData {
 
   private static final Log LOG = LogFactory.getLog(KeyValueDataWithTTL.class.getName());
 
+  /**
+   * columns of empty KeyValueData
+   */
+  private static final long[] EMPTY = new long[0];
+
   /**
    * creates empty KeyValueData
    */
-  KeyValueDataWithTTL() {
+  KeyValueDataWithTTL(final Simulator simulator, final RandomGenerator randomGenerator) {
+    super(simulator, randomGenerator);
     this.bytesSize = 0;
-    this.keyValuePacksCreateTime = new ArrayList<Long>();
-    this.keyValuePackByteSizes = new ArrayList<Long>();
+    this.keyValuePacksCreateTime = KeyValueDataWithTTL.EMPTY;
+    this.keyValuePackByteSizes = KeyValueDataWithTTL.EMPTY;
+    this.keyValuePacksCount = 0;
   }
 
   /**
-   * creates KeyValueData as clone as keyValueData
+   * creates KeyValueData as clone as keyValueData. Columns of clone have no spare capacity
    */
   KeyValueDataWithTTL(final KeyValueData keyValueData) {
+    super(keyValueData.simulator, keyValueData.randomGenerator);
     this.bytesSize = keyValueData.bytesSize;
-    this.keyValuePacksCreateTime = new ArrayList<Long>();
-    this.keyValuePackByteSizes = new ArrayList<Long>();
-    this.keyValuePacksCreateTime.addAll(keyValueData.keyValuePacksCreateTime);
-    this.keyValuePackByteSizes.addAll(keyValueData.keyValuePackByteSizes);
+    this.keyValuePacksCount = keyValueData.keyValuePacksCount;
+    this.keyValuePacksCreateTime = Arrays.copyOf(keyValueData.keyValuePacksCreateTime,
+      this.keyValuePacksCount);
+    this.keyValuePackByteSizes = Arrays.copyOf(keyValueData.keyValuePackByteSizes,
+      this.keyValuePacksCount);
   }
 
   /**
    * adds KeyValuePack to KeyValueData
    */
   @Override
-  public void addKeyValuePack() {
-    final long kvpSize = RandomGenerator.getKeyValuePackBytesSize();
+  public void addKeyValuePack(final long kvpSize) {
     this.bytesSize += kvpSize;
-    this.keyValuePackByteSizes.add(kvpSize);
-    this.keyValuePacksCreateTime.add(System.currentTimeMillis());
+    this.ensureCapacity(this.keyValuePacksCount + 1);
+    this.append(this.simulator.getCurrentTime(), kvpSize);
   }
 
   /**
@@ -52,11 +60,11 @@ public class KeyValueDataWithTTL extends KeyValueData {
    */
   @Override
   public void compress() {
+    final long compressionRatio = this.simulator.getConfiguration().COMPRESSION_RATIO;
     this.bytesSize = 0;
-    for (int i = 0; i < this.keyValuePackByteSizes.size(); i++) {
-      this.keyValuePackByteSizes.set(i, this.keyValuePackByteSizes.get(i)
-          / Configuration.INSTANCE.COMPRESSION_RATIO);
-      this.bytesSize += this.keyValuePackByteSizes.get(i);
+    for (int i = 0; i < this.keyValuePacksCount; i++) {
+      this.keyValuePackByteSizes[i] /= compressionRatio;
+      this.bytesSize += this.keyValuePackByteSizes[i];
     }
   }
 
@@ -68,32 +76,45 @@ public class KeyValueDataWithTTL extends KeyValueData {
   @Override
   public long mergeWith(final KeyValueData other) {
     long mergedBytes = 0;
-    final long curTime = System.currentTimeMillis();
-    for (int i = 0; i < other.keyValuePacksCreateTime.size(); i++) {
-      final long createdTime = other.keyValuePacksCreateTime.get(i);
-      final long byteSize = other.keyValuePackByteSizes.get(i);
+    final long curTime = this.simulator.getCurrentTime();
+    this.ensureCapacity(this.keyValuePacksCount + other.keyValuePacksCount);
+    for (int i = 0; i < other.keyValuePacksCount; i++) {
+      final long createdTime = other.keyValuePacksCreateTime[i];
+      final long byteSize = other.keyValuePackByteSizes[i];
 
       // if TTL is expired we don't add this keyValuePack to this
-      if ((curTime - createdTime) * Configuration.INSTANCE.getxFaster() >= RandomGenerator
-          .getKeyValueTTL()) {
+      if (curTime - createdTime >= this.randomGenerator.getKeyValueTTL()) {
         continue;
       }
 
       mergedBytes += byteSize;
       this.bytesSize += byteSize;
-      this.keyValuePackByteSizes.add(byteSize);
-      this.keyValuePacksCreateTime.add(createdTime);
+      this.append(createdTime, byteSize);
     }
     return mergedBytes;
   }
 
+  /**
+   * @return expected bytes of KeyValuePacks whose TTL is not expired at current simulated time.
+   *         Expected value is used, so that random stream of store is not touched
+   */
+  @Override
+  public double getLiveBytesSize() {
+    final long curTime = this.simulator.getCurrentTime();
+    double res = 0;
+    for (int i = 0; i < this.keyValuePacksCount; i++) {
+      res += this.keyValuePackByteSizes[i]
+          * this.randomGenerator.getKeyValueTTLSurvival(curTime - this.keyValuePacksCreateTime[i]);
+    }
+    return res;
+  }
+
   /**
    * clear this KeyValueData
    */
   @Override
   public void clear() {
     this.bytesSize = 0;
-    this.keyValuePackByteSizes.clear();
-    this.keyValuePacksCreateTime.clear();
+    this.keyValuePacksCount = 0;
   }
 }
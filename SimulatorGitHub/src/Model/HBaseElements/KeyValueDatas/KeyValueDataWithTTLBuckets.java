@@ -0,0 +1,231 @@
+package Model.HBaseElements.KeyValueDatas;
+
+import java.util.Arrays;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import Model.Simulator;
+import Tools.RandomGenerator;
+
+/**
+ * KeyValueData - emulates collection of KeyValues with TTL, aggregated into buckets by create time.
+ * KeyValuePacks created within one "KeyValue TTL bucket(ms)" gap are kept as one bucket: total
+ * bytes and mean create time. During merge each bucket of other KeyValueData survives TTL check
+ * with probability given by RandomGenerator.getKeyValueTTLSurvival, so bucket keeps expected
+ * amount of bytes instead of drawing TTL for each KeyValuePack. Survival probability is linear in
+ * age inside jitter range, so using mean create time of bucket gives exact expected value.
+ * Merge costs O(buckets) and amount of buckets is limited by TTL / bucket gap, no matter how much
+ * data was written
+ * @author ibra
+ */
+public class KeyValueDataWithTTLBuckets extends KeyValueData {
+
+  private static final Log LOG = LogFactory.getLog(KeyValueDataWithTTLBuckets.class.getName());
+
+  /**
+   * buckets with less expected bytes than this are dropped as expired
+   */
+  private static final double MIN_BUCKET_BYTES = 1;
+
+  /**
+   * columns of empty KeyValueData
+   */
+  private static final long[] EMPTY_INDEXES = new long[0];
+
+  /**
+   * columns of empty KeyValueData
+   */
+  private static final double[] EMPTY_VALUES = new double[0];
+
+  /**
+   * index of each bucket (create time / bucket gap), buckets are sorted by index,
+   * [0, bucketsCount) are used
+   */
+  private long[] bucketIndexes;
+
+  /**
+   * expected amount of bytes in each bucket
+   */
+  private double[] bucketBytes;
+
+  /**
+   * mean create time of bytes in each bucket
+   */
+  private double[] bucketCreateTimes;
+
+  /**
+   * amount of buckets in columns
+   */
+  private int bucketsCount;
+
+  /**
+   * expected total size of this KeyValue collection, bytesSize is its rounded value
+   */
+  private double exactBytesSize;
+
+  /**
+   * creates empty KeyValueData
+   */
+  KeyValueDataWithTTLBuckets(final Simulator simulator, final RandomGenerator randomGenerator) {
+    super(simulator, randomGenerator);
+    this.bytesSize = 0;
+    this.exactBytesSize = 0;
+    this.bucketIndexes = KeyValueDataWithTTLBuckets.EMPTY_INDEXES;
+    this.bucketBytes = KeyValueDataWithTTLBuckets.EMPTY_VALUES;
+    this.bucketCreateTimes = KeyValueDataWithTTLBuckets.EMPTY_VALUES;
+    this.bucketsCount = 0;
+  }
+
+  /**
+   * creates KeyValueData as clone as keyValueData. Columns of clone have no spare capacity
+   */
+  KeyValueDataWithTTLBuckets(final KeyValueDataWithTTLBuckets keyValueData) {
+    super(keyValueData.simulator, keyValueData.randomGenerator);
+    this.bytesSize = keyValueData.bytesSize;
+    this.exactBytesSize = keyValueData.exactBytesSize;
+    this.bucketsCount = keyValueData.bucketsCount;
+    this.bucketIndexes = Arrays.copyOf(keyValueData.bucketIndexes, this.bucketsCount);
+    this.bucketBytes = Arrays.copyOf(keyValueData.bucketBytes, this.bucketsCount);
+    this.bucketCreateTimes = Arrays.copyOf(keyValueData.bucketCreateTimes, this.bucketsCount);
+  }
+
+  /**
+   * adds KeyValuePack to KeyValueData - to the last bucket if it was created within its gap
+   */
+  @Override
+  public void addKeyValuePack(final long kvpSize) {
+    final long createTime = this.simulator.getCurrentTime();
+    final long index = createTime / this.simulator.getConfiguration().getKeyValueTTLBucket();
+
+    final int last = this.bucketsCount - 1;
+    if (last >= 0 && this.bucketIndexes[last] == index) {
+      this.bucketCreateTimes[last] = KeyValueDataWithTTLBuckets.mean(this.bucketCreateTimes[last],
+        this.bucketBytes[last], createTime, kvpSize);
+      this.bucketBytes[last] += kvpSize;
+    } else {
+      if (this.bucketsCount == this.bucketIndexes.length) {
+        final int capacity = this.bucketsCount * 3 / 2 + 1;
+        this.bucketIndexes = Arrays.copyOf(this.bucketIndexes, capacity);
+        this.bucketBytes = Arrays.copyOf(this.bucketBytes, capacity);
+        this.bucketCreateTimes = Arrays.copyOf(this.bucketCreateTimes, capacity);
+      }
+      this.bucketIndexes[this.bucketsCount] = index;
+      this.bucketBytes[this.bucketsCount] = kvpSize;
+      this.bucketCreateTimes[this.bucketsCount] = createTime;
+      this.bucketsCount++;
+    }
+    this.exactBytesSize += kvpSize;
+    this.bytesSize = Math.round(this.exactBytesSize);
+  }
+
+  /**
+   * compressing data before flush
+   */
+  @Override
+  public void compress() {
+    final long compressionRatio = this.simulator.getConfiguration().COMPRESSION_RATIO;
+    this.exactBytesSize = 0;
+    for (int i = 0; i < this.bucketsCount; i++) {
+      this.bucketBytes[i] /= compressionRatio;
+      this.exactBytesSize += this.bucketBytes[i];
+    }
+    this.bytesSize = Math.round(this.exactBytesSize);
+  }
+
+  /**
+   * merges this KeyValueData with other. Bytes of other's buckets are reduced by probability that
+   * their TTL is not expired yet, buckets with the same index are joined
+   * @param other - KeyValueData this to be merged with
+   * @return amount of bytes that was merged with this from other
+   */
+  @Override
+  public long mergeWith(final KeyValueData other) {
+    final KeyValueDataWithTTLBuckets that = (KeyValueDataWithTTLBuckets) other;
+    final long curTime = this.simulator.getCurrentTime();
+
+    final int capacity = this.bucketsCount + that.bucketsCount;
+    final long[] indexes = new long[capacity];
+    final double[] bytes = new double[capacity];
+    final double[] createTimes = new double[capacity];
+    int count = 0;
+    double mergedBytes = 0;
+
+    int i = 0;
+    int j = 0;
+    while (i < this.bucketsCount || j < that.bucketsCount) {
+      if (j == that.bucketsCount
+          || (i < this.bucketsCount && this.bucketIndexes[i] < that.bucketIndexes[j])) {
+        indexes[count] = this.bucketIndexes[i];
+        bytes[count] = this.bucketBytes[i];
+        createTimes[count] = this.bucketCreateTimes[i];
+        count++;
+        i++;
+        continue;
+      }
+
+      // bucket of other - only its expected not expired part is merged
+      final double survived = that.bucketBytes[j]
+          * this.randomGenerator.getKeyValueTTLSurvival(curTime - that.bucketCreateTimes[j]);
+      if (survived >= KeyValueDataWithTTLBuckets.MIN_BUCKET_BYTES) {
+        mergedBytes += survived;
+        if (i < this.bucketsCount && this.bucketIndexes[i] == that.bucketIndexes[j]) {
+          indexes[count] = this.bucketIndexes[i];
+          bytes[count] = this.bucketBytes[i] + survived;
+          createTimes[count] = KeyValueDataWithTTLBuckets.mean(this.bucketCreateTimes[i],
+            this.bucketBytes[i], that.bucketCreateTimes[j], survived);
+          count++;
+          i++;
+        } else {
+          indexes[count] = that.bucketIndexes[j];
+          bytes[count] = survived;
+          createTimes[count] = that.bucketCreateTimes[j];
+          count++;
+        }
+      }
+      j++;
+    }
+
+    this.bucketIndexes = indexes;
+    this.bucketBytes = bytes;
+    this.bucketCreateTimes = createTimes;
+    this.bucketsCount = count;
+
+    final long oldBytesSize = this.bytesSize;
+    this.exactBytesSize += mergedBytes;
+    this.bytesSize = Math.round(this.exactBytesSize);
+    return this.bytesSize - oldBytesSize;
+  }
+
+  /**
+   * @return mean create time of two parts of bucket, weighted by their bytes
+   */
+  private static double mean(final double createTime1, final double bytes1,
+      final double createTime2, final double bytes2) {
+    return (createTime1 * bytes1 + createTime2 * bytes2) / (bytes1 + bytes2);
+  }
+
+  /**
+   * @return expected bytes of buckets whose TTL is not expired at current simulated time
+   */
+  @Override
+  public double getLiveBytesSize() {
+    final long curTime = this.simulator.getCurrentTime();
+    double res = 0;
+    for (int i = 0; i < this.bucketsCount; i++) {
+      res += this.bucketBytes[i]
+          * this.randomGenerator.getKeyValueTTLSurvival(curTime - this.bucketCreateTimes[i]);
+    }
+    return res;
+  }
+
+  /**
+   * clear this KeyValueData
+   */
+  @Override
+  public void clear() {
+    this.bytesSize = 0;
+    this.exactBytesSize = 0;
+    this.bucketsCount = 0;
+  }
+}
@@ -3,7 +3,7 @@ package Model.HBaseElements.KeyValueDatas;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import Model.Configuration;
+import Model.Simulator;
 import Tools.RandomGenerator;
 
 /**
@@ -17,7 +17,8 @@ public class KeyValueDataWithoutTTL extends KeyValueData {
   /**
    * creates empty KeyValueData
    */
-  public KeyValueDataWithoutTTL() {
+  public KeyValueDataWithoutTTL(final Simulator simulator, final RandomGenerator randomGenerator) {
+    super(simulator, randomGenerator);
     this.bytesSize = 0;
   }
 
@@ -25,6 +26,7 @@ public class KeyValueDataWithoutTTL extends KeyValueData {
    * creates KeyValueData as clone as keyValueData
    */
   public KeyValueDataWithoutTTL(final KeyValueData keyValueData) {
+    super(keyValueData.simulator, keyValueData.randomGenerator);
     this.bytesSize = keyValueData.bytesSize;
   }
 
@@ -32,8 +34,8 @@ public class KeyValueDataWithoutTTL extends KeyValueData {
    * adds KeyValuePack to KeyValueData
    */
   @Override
-  public void addKeyValuePack() {
-    this.bytesSize += RandomGenerator.getKeyValuePackBytesSize();
+  public void addKeyValuePack(final long kvpSize) {
+    this.bytesSize += kvpSize;
   }
 
   /**
@@ -41,7 +43,7 @@ public class KeyValueDataWithoutTTL extends KeyValueData {
    */
   @Override
   public void compress() {
-    this.bytesSize /= Configuration.INSTANCE.COMPRESSION_RATIO;
+    this.bytesSize /= this.simulator.getConfiguration().COMPRESSION_RATIO;
   }
 
   /**
@@ -0,0 +1,48 @@
+package Model.HBaseElements;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * KeyValuePack - immutable descriptor of one put: pack of KeyValues generated once by Simulator.
+ * With "Identical workload" the same descriptor is put to every Store, so all stores see exactly
+ * the same put stream
+ * @author ibra
+ */
+public class KeyValuePack {
+
+  private static final Log LOG = LogFactory.getLog(KeyValuePack.class.getName());
+
+  /**
+   * simulated time(ms) when put came to region
+   */
+  private final long arrivalTime;
+
+  /**
+   * size of KeyValues of pack before compression
+   */
+  private final long bytesSize;
+
+  /**
+   * @param arrivalTime - simulated time(ms) when put came to region
+   * @param bytesSize - size of KeyValues of pack before compression
+   */
+  public KeyValuePack(final long arrivalTime, final long bytesSize) {
+    this.arrivalTime = arrivalTime;
+    this.bytesSize = bytesSize;
+  }
+
+  /**
+   * @return simulated time(ms) when put came to region
+   */
+  public long getArrivalTime() {
+    return this.arrivalTime;
+  }
+
+  /**
+   * @return size of KeyValues of pack before compression
+   */
+  public long getBytesSize() {
+    return this.bytesSize;
+  }
+}
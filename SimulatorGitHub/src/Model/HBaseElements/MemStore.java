@@ -4,8 +4,10 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import Model.Configuration;
+import Model.Simulator;
 import Model.HBaseElements.KeyValueDatas.KeyValueData;
 import Tools.HDFSStream;
+import Tools.RandomGenerator;
 
 /**
  * MemStore
@@ -20,25 +22,34 @@ public class MemStore {
    */
   private final KeyValueData data;
 
+  /**
+   * configuration of simulation
+   */
+  private final Configuration configuration;
+
   /**
    * creates and initializes object
+   * @param simulator - simulation this MemStore belongs to
+   * @param randomGenerator - random stream of store this MemStore belongs to
    */
-  public MemStore() {
-    this.data = KeyValueData.getKeyValueData();
+  public MemStore(final Simulator simulator, final RandomGenerator randomGenerator) {
+    this.data = KeyValueData.getKeyValueData(simulator, randomGenerator);
+    this.configuration = simulator.getConfiguration();
   }
 
   /**
    * puts KeyValuePack to this MemStore
+   * @param bytesSize - size of KeyValuePack
    */
-  public void put() {
-    this.data.addKeyValuePack();
+  public void put(final long bytesSize) {
+    this.data.addKeyValuePack(bytesSize);
   }
 
   /**
    * @return if this MemStore is Full
    */
   public boolean isFull() {
-    return this.getBytesSize() >= Configuration.INSTANCE.getMemstoreBytesSize();
+    return this.getBytesSize() >= this.configuration.getMemstoreBytesSize();
   }
 
   /**
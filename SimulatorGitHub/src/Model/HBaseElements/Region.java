@@ -7,9 +7,13 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import Model.Simulator;
+import Model.Compactors.CompactionPool;
+import Tools.HDFS;
 
 /**
- * Region - contains collection of Stores - each Store has unique columnFamily
+ * Region - contains collection of Stores - each Store has unique columnFamily.
+ * Stores are split into groups of "Stores per HDFS" in order of columnFamily, each group is
+ * region server: it shares one HDFS and one CompactionPool
  * @author ibra
  */
 public class Region {
@@ -22,23 +26,67 @@ public class Region {
    */
   private final List<Store> stores;
 
+  /**
+   * simulation this region belongs to
+   */
+  private final Simulator simulator;
+
   /**
    * creates and initializes object
+   * @param simulator - simulation this region belongs to
    * @param storesCount - amount of stores in this region
    */
-  public Region(final int storesCount) {
+  public Region(final Simulator simulator, final int storesCount) {
+    this.simulator = simulator;
     this.stores = new ArrayList<Store>();
+    final long storesPerHDFS = simulator.getConfiguration().getStoresPerHDFS();
+    HDFS hdfs = null;
+    CompactionPool compactionPool = null;
     for (int i = 0; i < storesCount; i++) {
-      this.stores.add(new Store(i));
+      if (hdfs == null || (storesPerHDFS > 0 && i % storesPerHDFS == 0)) {
+        hdfs = new HDFS(simulator.getEventQueue(), simulator.getConfiguration(),
+            simulator.getIOStatistics());
+        compactionPool = new CompactionPool(simulator);
+      }
+      this.stores.add(new Store(simulator, i, hdfs, compactionPool));
     }
   }
 
   /**
    * put KeyValuePack to Region
    * @param columnFamily - columnFamily of keyVlaues in KeyValuePack
+   * @param pack - put KeyValuePack
+   */
+  public void put(final int columnFamily, final KeyValuePack pack) {
+    this.stores.get(columnFamily).put(pack);
+  }
+
+  /**
+   * put the same KeyValuePack to each Store of Region, so that stores see identical workload
+   * @param pack - put KeyValuePack
+   */
+  public void putToAllStores(final KeyValuePack pack) {
+    for (int i = 0; i < this.stores.size(); i++) {
+      this.stores.get(i).put(pack);
+    }
+  }
+
+  /**
+   * flush replayed from trace in Store with columnFamily
+   * @param columnFamily - columnFamily of Store
+   * @param bytesSize - flushed bytes
    */
-  public void put(final int columnFamily) {
-    this.stores.get(columnFamily).put();
+  public void flush(final int columnFamily, final long bytesSize) {
+    this.stores.get(columnFamily).flush(bytesSize);
+  }
+
+  /**
+   * invoke major compaction in each Store of Region
+   */
+  public void forceMajorCompaction() {
+    for (int i = 0; i < this.stores.size(); i++) {
+      this.stores.get(i).forceMajorCompaction();
+    }
   }
 
   /**
@@ -53,6 +101,38 @@ public class Region {
     return res;
   }
 
+  /**
+   * @param columnFamily - columnFamily of Store
+   * @return amount of storeFiles of Store that wait in compaction queue or are being compacted
+   */
+  public long getCompactingFilesCount(final int columnFamily) {
+    return this.stores.get(columnFamily).getCompactingFilesCount();
+  }
+
+  /**
+   * @param columnFamily - columnFamily of Store
+   * @return total size of storeFiles of Store that wait in compaction queue or are being compacted
+   */
+  public long getCompactingBytes(final int columnFamily) {
+    return this.stores.get(columnFamily).getCompactingBytes();
+  }
+
+  /**
+   * @param columnFamily - columnFamily of Store
+   * @return expected bytes of not expired KeyValues in storeFiles of Store
+   */
+  public long getLiveBytes(final int columnFamily) {
+    return this.stores.get(columnFamily).getLiveBytes();
+  }
+
+  /**
+   * @param columnFamily - columnFamily of Store
+   * @return amount of storeFiles of Store, including storeFiles that are being compacted
+   */
+  public long getStoreFilesCount(final int columnFamily) {
+    return this.stores.get(columnFamily).getStoreFilesCount();
+  }
+
   /**
    * @return list of titles of each Store.
    *         Store's title is its columnFamily and compactionAlgorithmType, 
@@ -61,7 +141,7 @@ public class Region {
   public List<String> getStoreTitles() {
     List<String> res = new ArrayList<String>();
     for (int i = 0; i < this.stores.size(); i++) {
-      res.add(i + "(" + Simulator.INSTANCE.getCompactionConfiguration(i).getTitle() + ")");
+      res.add(i + "(" + this.simulator.getCompactionConfiguration(i).getTitle() + ")");
     }
     return res;
   }
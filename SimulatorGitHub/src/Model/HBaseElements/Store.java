@@ -1,33 +1,53 @@
 package Model.HBaseElements;
 
-import java.util.Deque;
+import java.util.ArrayDeque;
 import java.util.Queue;
-import java.util.concurrent.LinkedBlockingDeque;
-import java.util.concurrent.LinkedBlockingQueue;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import Model.Configuration;
 import Model.Simulator;
 import Model.Compactors.AbstractCompactor;
+import Model.Compactors.CompactionPool;
+import Tools.Event;
+import Tools.EventQueue;
 import Tools.HDFS;
 import Tools.HDFSStream;
-import Tools.Helper;
+import Tools.IOPriority;
+import Tools.RandomGenerator;
 
 /**
  * Store - consists of Collection of StoreFiles and MemStore each Store is uniquely identified by its columnFamily
+ * 
+ * Store has write back-pressure like HBase: flush of store with too many storeFiles ("Blocking
+ * store files", compacting files are counted too) is delayed till compactions catch up, but not
+ * longer than "Blocking wait time(ms)". While memstore and flushes in progress are too large
+ * ("Memstore block multiplier"), puts are blocked and wait in queue of Store. Latency of each put
+ * (queue wait plus stall) is sent to Simulator
  * @author ibra
  */
 public class Store {
 
   private static final Log LOG = LogFactory.getLog(Store.class.getName());
 
+  /**
+   * simulation this Store belongs to
+   */
+  private final Simulator simulator;
+
   /**
    * HDFS instance to simulate read/write from HDFS
-   * one HDFS object per Store, because 1 Store represents here Store in separate HBase cluster
+   * it is shared by stores of one group (see "Stores per HDFS" in Configuration), by default
+   * group is one Store, because 1 Store represents here Store in separate HBase cluster
    */
   private final HDFS hdfs;
 
+  /**
+   * compaction threads of region server this Store belongs to
+   */
+  private final CompactionPool compactionPool;
+
   /**
    * compaction algorithm and compaction configuration for this Store
    */
@@ -54,30 +74,211 @@ public class Store {
   private final StoreFileCollection storeFiles;
 
   /**
-   * queue for executing instruction that are coming from parallel threads
+   * queue for executing instructions of this Store
    */
   private final ExecuteQueue executeQueue;
 
+  /**
+   * storeFiles that are being compacted now - they are not in storeFiles already, but are still
+   * counted against blocking store files and are still on disk
+   */
+  private final StoreFileCollection compactingFiles;
+
+  /**
+   * total size of storeFiles that are being compacted now - compaction backlog of this Store
+   */
+  private long compactingBytes;
+
+  /**
+   * bytes this Store holds on disk: storeFiles, storeFiles being compacted and outputs of running
+   * compactions
+   */
+  private long diskBytes;
+
+  /**
+   * bytes of memstore flushes that are not finished yet
+   */
+  private long flushingBytes;
+
+  /**
+   * scheduled event of delayed flush, null if flush is not delayed
+   */
+  private Event delayedFlush;
+
+  /**
+   * random stream of this Store, its compactor splits own stream from it
+   */
+  private final RandomGenerator randomGenerator;
+
+  /**
+   * blocked puts in order of arrival
+   */
+  private final Queue<KeyValuePack> pendingPuts;
+
+  /**
+   * are pending puts being executed now, so that flush started by one of them doesn't start
+   * executing them again
+   */
+  private boolean executingPendingPuts;
+
   /**
    * creates and initializes Store
+   * @param simulator - simulation this Store belongs to
    * @param columnFamily - columnFamily of this Store
+   * @param hdfs - HDFS this Store reads/writes from/to
+   * @param compactionPool - compaction threads of region server this Store belongs to
    */
-  public Store(final int columnFamily) {
-    this.hdfs = new HDFS();
+  public Store(final Simulator simulator, final int columnFamily, final HDFS hdfs,
+      final CompactionPool compactionPool) {
+    this.simulator = simulator;
+    this.hdfs = hdfs;
+    this.compactionPool = compactionPool;
     this.columnFamily = columnFamily;
-    this.memStore = new MemStore();
+    this.randomGenerator = simulator.splitRandomGenerator();
+    this.memStore = new MemStore(simulator, this.randomGenerator);
     this.storeFiles = new StoreFileCollection();
     this.readAmp = 0;
     this.executeQueue = new ExecuteQueue();
-    this.compactor = Simulator.INSTANCE.getCompactionConfiguration(columnFamily).getCompactor(
-      this.hdfs, this);
+    this.compactingFiles = new StoreFileCollection();
+    this.compactingBytes = 0;
+    this.diskBytes = 0;
+    this.flushingBytes = 0;
+    this.delayedFlush = null;
+    this.pendingPuts = new ArrayDeque<KeyValuePack>();
+    this.executingPendingPuts = false;
+    this.compactor = simulator.getCompactionConfiguration(columnFamily).getCompactor(this.hdfs,
+      this);
+  }
+
+  /**
+   * @return simulation this Store belongs to
+   */
+  public Simulator getSimulator() {
+    return this.simulator;
+  }
+
+  /**
+   * @return random stream of this Store
+   */
+  public RandomGenerator getRandomGenerator() {
+    return this.randomGenerator;
+  }
+
+  /**
+   * @return columnFamily of this Store
+   */
+  public int getColumnFamily() {
+    return this.columnFamily;
+  }
+
+  /**
+   * @return compaction threads of region server this Store belongs to
+   */
+  public CompactionPool getCompactionPool() {
+    return this.compactionPool;
+  }
+
+  /**
+   * @return amount of storeFiles of this Store, including storeFiles that are being compacted
+   */
+  public long getStoreFilesCount() {
+    return this.storeFiles.size() + this.compactingFiles.size();
+  }
+
+  /**
+   * @return amount of storeFiles given to compactor that are not compacted yet - waiting in
+   *         compaction queue or being compacted
+   */
+  public long getCompactingFilesCount() {
+    return this.compactingFiles.size();
+  }
+
+  /**
+   * @return total size of storeFiles given to compactor that are not compacted yet
+   */
+  public long getCompactingBytes() {
+    return this.compactingBytes;
+  }
+
+  /**
+   * @return bytes this Store holds on disk: storeFiles, storeFiles being compacted and outputs of
+   *         running compactions
+   */
+  public long getDiskBytes() {
+    return this.diskBytes;
+  }
+
+  /**
+   * @return expected bytes of not expired KeyValues in storeFiles of this Store, including
+   *         storeFiles being compacted
+   */
+  public long getLiveBytes() {
+    double res = 0;
+    for (final StoreFile storeFile : this.storeFiles) {
+      res += storeFile.getLiveBytesSize();
+    }
+    for (final StoreFile storeFile : this.compactingFiles) {
+      res += storeFile.getLiveBytesSize();
+    }
+    return Math.round(res);
+  }
+
+  /**
+   * adds bytes to disk usage of this Store
+   * @param bytesSize - bytes written(positive) or deleted(negative)
+   */
+  private void addDiskBytes(final long bytesSize) {
+    this.diskBytes += bytesSize;
+    this.simulator.diskUsageChanged(this.columnFamily, this.diskBytes);
+  }
+
+  /**
+   * @return priority of compactions of this Store - (blocking store files - storeFiles count),
+   *         the less - the sooner its compactions are started
+   */
+  public int getCompactionPriority() {
+    return (int) (this.simulator.getConfiguration().getBlockingStoreFiles() - this
+        .getStoreFilesCount());
   }
 
   /**
-   * put instruction - put KeyValuePack - Collection of KeyValues
+   * @return if puts to this Store are blocked: memstore together with flushes in progress is too
+   *         large
    */
-  public void put() {
-    this.executeQueue.put();
+  private boolean isBlocked() {
+    final Configuration configuration = this.simulator.getConfiguration();
+    return configuration.getMemstoreBlockMultiplier() > 0
+        && this.memStore.getBytesSize() + this.flushingBytes >= configuration
+            .getMemstoreBlockMultiplier() * configuration.getMemstoreBytesSize();
+  }
+
+  /**
+   * put instruction - put KeyValuePack - Collection of KeyValues. If puts are blocked, put waits
+   * in queue till flush frees memstore
+   * @param pack - put KeyValuePack, it may be put to other Stores too
+   */
+  public void put(final KeyValuePack pack) {
+    if (this.isBlocked() || !this.pendingPuts.isEmpty()) {
+      this.pendingPuts.add(pack);
+      this.simulator.putBlocked();
+      return;
+    }
+    this.executeQueue.put(pack);
+  }
+
+  /**
+   * executes pending puts while puts are not blocked
+   */
+  private void executePendingPuts() {
+    if (this.executingPendingPuts) {
+      return;
+    }
+    this.executingPendingPuts = true;
+    while (!this.pendingPuts.isEmpty() && !this.isBlocked()) {
+      this.executeQueue.put(this.pendingPuts.poll());
+      this.simulator.putUnblocked();
+    }
+    this.executingPendingPuts = false;
   }
 
   /**
@@ -87,12 +288,62 @@ public class Store {
     Store.this.executeQueue.forceMajorCompaction();
   }
 
+  /**
+   * flush replayed from trace instruction - storeFile of flushed size is written without memstore
+   * @param bytesSize - flushed bytes
+   */
+  public void flush(final long bytesSize) {
+    this.executeQueue.flush(bytesSize);
+  }
+
   /**
    * do put KeyValuePack into this Store
+   * @param pack - put KeyValuePack
+   */
+  private void doPut(final KeyValuePack pack) {
+    this.memStore.put(pack.getBytesSize());
+    this.simulator.putOccurred(this.columnFamily,
+      this.simulator.getCurrentTime() - pack.getArrivalTime());
+    if (this.memStore.isFull() && this.delayedFlush == null) {
+      if (this.isFlushDelayed()) {
+        this.delayFlush();
+      } else {
+        this.executeQueue.flush();
+      }
+    }
+  }
+
+  /**
+   * @return if flush should be delayed because this Store has too many storeFiles
+   */
+  private boolean isFlushDelayed() {
+    final Configuration configuration = this.simulator.getConfiguration();
+    return configuration.getBlockingWaitTime() > 0
+        && this.getStoreFilesCount() >= configuration.getBlockingStoreFiles();
+  }
+
+  /**
+   * delays flush till compactions bring storeFiles count down or till blocking wait time passes
    */
-  private void doPut() {
-    this.memStore.put();
-    if (this.memStore.isFull()) {
+  private void delayFlush() {
+    this.delayedFlush = new Event() {
+      @Override
+      public void execute() {
+        Store.this.delayedFlush = null;
+        Store.this.executeQueue.flush();
+      }
+    };
+    this.simulator.getEventQueue().scheduleAfter(
+      this.simulator.getConfiguration().getBlockingWaitTime(), this.delayedFlush);
+  }
+
+  /**
+   * starts delayed flush right away if storeFiles count is not too large anymore
+   */
+  private void checkDelayedFlush() {
+    if (this.delayedFlush != null && !this.isFlushDelayed()) {
+      this.simulator.getEventQueue().cancel(this.delayedFlush);
+      this.delayedFlush = null;
       this.executeQueue.flush();
     }
   }
@@ -112,14 +363,52 @@ public class Store {
   }
 
   /**
-   * do memstore flush
-   * @param stream - stream to read/write from/to HDFS during flush
+   * do memstore flush. StoreFile is added to storeFiles when HDFS finishes writing it
    */
-  private void doFlush(final HDFSStream stream) {
+  private void doFlush() {
+    final HDFSStream stream = new HDFSStream(this.hdfs, IOPriority.FLUSH, this.columnFamily);
+    final long bytesSize = this.memStore.getBytesSize();
     final StoreFile storeFile = this.memStore.flush(stream);
+    this.flushingBytes += bytesSize;
+    stream.submit(new Event() {
+      @Override
+      public void execute() {
+        Store.this.flushingBytes -= bytesSize;
+        Store.this.executeQueue.flushFinished(storeFile);
+        Store.this.executePendingPuts();
+      }
+    });
+    this.executePendingPuts();
+  }
+
+  /**
+   * do flush replayed from trace. Real flush was already delayed by real back-pressure if it had
+   * to be, so it is not delayed again. StoreFile is added to storeFiles when HDFS finishes writing
+   * it
+   * @param bytesSize - flushed bytes
+   */
+  private void doFlush(final long bytesSize) {
+    final HDFSStream stream = new HDFSStream(this.hdfs, IOPriority.FLUSH, this.columnFamily);
+    final StoreFile storeFile = new StoreFile(this.simulator, this.randomGenerator, bytesSize,
+        stream);
+    stream.submit(new Event() {
+      @Override
+      public void execute() {
+        Store.this.executeQueue.flushFinished(storeFile);
+      }
+    });
+  }
+
+  /**
+   * do adding flushed storeFile to storeFiles
+   * @param storeFile flushed storeFile
+   */
+  private void doAddFlushed(final StoreFile storeFile) {
     this.storeFiles.add(storeFile);
-    Simulator.INSTANCE.flushOccurred(this.columnFamily, storeFile.getBytesSize());
+    this.addDiskBytes(storeFile.getBytesSize());
+    this.simulator.flushOccurred(this.columnFamily, storeFile.getBytesSize());
     this.readAmp = this.storeFiles.size();
+    this.simulator.readAmplificationChanged(this.columnFamily, this.readAmp);
 
     // new file added to storeFiles, so maybe compaction maybe needed
     this.executeQueue.compaction();
@@ -129,12 +418,24 @@ public class Store {
    * do adding compacted storeFile to storeFiles
    * @param storeFile compacted storeFile
    * @param totalHdfsIO - total amount of bytes that were read/written from/to HDFS during this compaction
+   * @param compactedFiles - storeFiles that were compacted
+   * @param compactedBytes - total size of storeFiles that were compacted
    */
-  private void doAdd(final StoreFile storeFile, final long totalHdfsIO) {
+  private void doAdd(final StoreFile storeFile, final long totalHdfsIO,
+      final StoreFileCollection compactedFiles, final long compactedBytes) {
     this.storeFiles.add(storeFile);
-    Simulator.INSTANCE.compactionOccurred(this.columnFamily, totalHdfsIO);
+    for (final StoreFile compactedFile : compactedFiles) {
+      this.compactingFiles.remove(compactedFile);
+    }
+    this.compactingBytes -= compactedBytes;
+    // compacted storeFile is already counted since compaction started writing it
+    this.addDiskBytes(-compactedBytes);
+    this.simulator.compactionOccurred(this.columnFamily, totalHdfsIO);
     this.readAmp = this.storeFiles.size();
+    this.simulator.readAmplificationChanged(this.columnFamily, this.readAmp);
 
+    // storeFiles count decreased, so delayed flush maybe can go
+    this.checkDelayedFlush();
     // new file added to storeFiles, so maybe compaction maybe needed
     this.executeQueue.compaction();
   }
@@ -151,112 +452,112 @@ public class Store {
    * to storeFiles
    * @param compacted - compacted file resulted from BackgroundCompactor after finishing compaction
    * @param totalHdfsIO - total amount of bytes that were read/written from/to HDFS during this compaction 
+   * @param compactedFiles - storeFiles that were compacted
+   * @param compactedBytes - total size of storeFiles that were compacted
+   */
+  public void compactionFinished(final StoreFile compacted, final long totalHdfsIO,
+      final StoreFileCollection compactedFiles, final long compactedBytes) {
+    this.executeQueue.compactionFinished(compacted, totalHdfsIO, compactedFiles, compactedBytes);
+  }
+
+  /**
+   * compactor took storeFiles out of storeFiles and queued their compaction, they are still
+   * counted against blocking store files and held on disk till compaction is finished
+   * @param toCompact - storeFiles to be compacted
+   * @param bytesSize - total size of storeFiles to be compacted
    */
-  public void compactionFinished(final StoreFile compacted, final long totalHdfsIO) {
-    this.executeQueue.compactionFinished(compacted, totalHdfsIO);
+  public void compactionQueued(final StoreFileCollection toCompact, final long bytesSize) {
+    this.compactingFiles.addAll(toCompact);
+    this.compactingBytes += bytesSize;
   }
 
   /**
-   * queue for executing instruction that are coming from parallel threads
+   * compaction started writing its output, so inputs and output are on disk together till it is
+   * finished
+   * @param bytesSize - size of compacted storeFile
+   */
+  public void compactionWriting(final long bytesSize) {
+    this.addDiskBytes(bytesSize);
+  }
+
+  /**
+   * queue for executing instructions: each instruction is an event in simulation EventQueue,
+   * so instructions of all stores are executed one by one in order of simulated time
    * @author ibra
    */
   private class ExecuteQueue {
     /**
-     * queue of instructions types
+     * event queue of simulation
      */
-    private final Deque<StoreOperationType> deque = new LinkedBlockingDeque<StoreOperationType>();
+    private final EventQueue eventQueue = Store.this.simulator.getEventQueue();
 
     /**
-     * queue of StoreFiles resulted from BackgroundCompactor that need to be added to
-     * Store.storeFiles
+     * minor compaction instruction - the same event is reused, because store needs at most one
+     * pending minor compaction: selection looks at all storeFiles anyway
      */
-    private final Queue<StoreFile> compactedQueue = new LinkedBlockingQueue<StoreFile>();
+    private final StoreOperation compaction = new StoreOperation(StoreOperationType.COMPACTION);
 
     /**
-     * queue of Longs - total HDFS Bytes IO done during this compaction
+     * is minor compaction instruction scheduled and not executed yet
      */
-    private final Queue<Long> totalHdfsIOQueue = new LinkedBlockingQueue<Long>();
-
-    private ExecuteQueue() {
-      /**
-       * separate thread for logging
-       */
-      new Thread(new Runnable() {
-        @Override
-        public void run() {
-          while (!Simulator.INSTANCE.isStopped()) {
-            Helper.logSleep();
-            // if deque size exeeds 1000 it means that load is too high
-            if (ExecuteQueue.this.deque.size() >= 1000) {
-              LOG.info("Store " + Store.this.columnFamily + " in queue = "
-                  + ExecuteQueue.this.deque.size());
-            }
-          }
-        }
-      }).start();
-
-      /**
-       * thread for processing queue of instructions
-       */
-      new Thread(new Runnable() {
-        @Override
-        public void run() {
-          final HDFSStream stream = new HDFSStream(Store.this.hdfs);
-
-          while (!Simulator.INSTANCE.isStopped()) {
-            Helper.sleep();
-            while (!ExecuteQueue.this.deque.isEmpty()) {
-              final StoreOperationType ev = ExecuteQueue.this.deque.poll();
-              switch (ev) {
-              case PUT:
-                Store.this.doPut();
-                break;
-              case COMPACTION:
-                Store.this.doCompaction();
-                break;
-              case MAJOR_COMPACTION:
-                Store.this.doMajorCompaction();
-                break;
-              case FLUSH:
-                Store.this.doFlush(stream);
-                break;
-              case COMPACTION_FINISHED:
-                Store.this.doAdd(ExecuteQueue.this.compactedQueue.poll(),
-                  ExecuteQueue.this.totalHdfsIOQueue.poll());
-                break;
-              }
-            }
-          }
-        }
-      }).start();
-    }
+    private boolean compactionPending = false;
 
     /**
-     * put KeyValuePack instruction
+     * put KeyValuePack instruction. Put is executed right away - it is already an event
+     * @param pack - put KeyValuePack
      */
-    private void put() {
-      this.deque.add(StoreOperationType.PUT);
+    private void put(final KeyValuePack pack) {
+      Store.this.doPut(pack);
     }
 
     /**
-     * minor compaction instruction
+     * minor compaction instruction. Redundant instructions are merged: if minor compaction is
+     * already pending, it will see new storeFiles too
      */
     private void compaction() {
-      this.deque.add(StoreOperationType.COMPACTION);
+      if (this.compactionPending) {
+        return;
+      }
+      this.compactionPending = true;
+      this.eventQueue.scheduleAfter(0, this.compaction);
+    }
+
+    /**
+     * pending minor compaction instruction is being executed, so next instruction needs new event
+     */
+    private void compactionStarted() {
+      this.compactionPending = false;
     }
 
     /**
      * major compaction instruction
      */
     private void forceMajorCompaction() {
-      this.deque.add(StoreOperationType.MAJOR_COMPACTION);
+      this.eventQueue.scheduleAfter(0, new StoreOperation(StoreOperationType.MAJOR_COMPACTION));
     }
 
     /**
-     * memstore flush instruction
+     * memstore flush instruction. Flush is started right away, so that next puts go to empty memstore
      */
     private void flush() {
-      this.deque.addFirst(StoreOperationType.FLUSH);
+      Store.this.doFlush();
+    }
+
+    /**
+     * flush replayed from trace instruction. Flush is started right away - it is already an event
+     * @param bytesSize - flushed bytes
+     */
+    private void flush(final long bytesSize) {
+      Store.this.doFlush(bytesSize);
+    }
+
+    /**
+     * memstore flush was finished, so we need to add flushed StoreFile to storeFiles
+     * @param flushed - StoreFile written during flush
+     */
+    private void flushFinished(final StoreFile flushed) {
+      this.eventQueue.scheduleAfter(0, new StoreOperation(StoreOperationType.FLUSH_FINISHED,
+          flushed, 0, null, 0));
     }
 
     /**
@@ -265,11 +566,79 @@ public class Store {
      * @param compacted - compacted file resulted from BackgroundCompactor after finishing
      *          compaction
      * @param totalHdfsIO - total amount of bytes that were read/written from/to HDFS during this compaction
+     * @param compactedFiles - storeFiles that were compacted
+     * @param compactedBytes - total size of storeFiles that were compacted
      */
-    private void compactionFinished(final StoreFile compacted, final long totalHdfsIO) {
-      this.compactedQueue.add(compacted);
-      this.totalHdfsIOQueue.add(totalHdfsIO);
-      this.deque.addFirst(StoreOperationType.COMPACTION_FINISHED);
+    private void compactionFinished(final StoreFile compacted, final long totalHdfsIO,
+        final StoreFileCollection compactedFiles, final long compactedBytes) {
+      this.eventQueue.scheduleAfter(0, new StoreOperation(StoreOperationType.COMPACTION_FINISHED,
+          compacted, totalHdfsIO, compactedFiles, compactedBytes));
+    }
+  }
+
+  /**
+   * instruction of this Store as event of simulation
+   * @author ibra
+   */
+  private class StoreOperation extends Event {
+    /**
+     * type of instruction
+     */
+    private final StoreOperationType type;
+
+    /**
+     * StoreFile that need to be added to Store.storeFiles (for FLUSH_FINISHED and
+     * COMPACTION_FINISHED)
+     */
+    private final StoreFile storeFile;
+
+    /**
+     * total HDFS Bytes IO done during compaction (for COMPACTION_FINISHED)
+     */
+    private final long totalHdfsIO;
+
+    /**
+     * storeFiles that were compacted (for COMPACTION_FINISHED)
+     */
+    private final StoreFileCollection compactedFiles;
+
+    /**
+     * total size of storeFiles that were compacted (for COMPACTION_FINISHED)
+     */
+    private final long compactedBytes;
+
+    private StoreOperation(final StoreOperationType type) {
+      this(type, null, 0, null, 0);
+    }
+
+    private StoreOperation(final StoreOperationType type, final StoreFile storeFile,
+        final long totalHdfsIO, final StoreFileCollection compactedFiles,
+        final long compactedBytes) {
+      this.type = type;
+      this.storeFile = storeFile;
+      this.totalHdfsIO = totalHdfsIO;
+      this.compactedFiles = compactedFiles;
+      this.compactedBytes = compactedBytes;
+    }
+
+    @Override
+    public void execute() {
+      switch (this.type) {
+      case COMPACTION:
+        Store.this.executeQueue.compactionStarted();
+        Store.this.doCompaction();
+        break;
+      case MAJOR_COMPACTION:
+        Store.this.doMajorCompaction();
+        break;
+      case FLUSH_FINISHED:
+        Store.this.doAddFlushed(this.storeFile);
+        break;
+      case COMPACTION_FINISHED:
+        Store.this.doAdd(this.storeFile, this.totalHdfsIO, this.compactedFiles,
+          this.compactedBytes);
+        break;
+      }
     }
   }
 
@@ -278,6 +647,6 @@ public class Store {
    * @author ibra
    */
   enum StoreOperationType {
-    PUT, COMPACTION, MAJOR_COMPACTION, FLUSH, COMPACTION_FINISHED;
+    COMPACTION, MAJOR_COMPACTION, FLUSH_FINISHED, COMPACTION_FINISHED;
   }
-}
\ No newline at end of file
+}
@@ -3,8 +3,10 @@ package Model.HBaseElements;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import Model.Simulator;
 import Model.HBaseElements.KeyValueDatas.KeyValueData;
 import Tools.HDFSStream;
+import Tools.RandomGenerator;
 
 /**
  * StoreFile
@@ -21,9 +23,11 @@ public class StoreFile {
 
   /**
    * creates and initializes empty StoreFile
+   * @param simulator - simulation this StoreFile belongs to
+   * @param randomGenerator - random stream of store this StoreFile belongs to
    */
-  public StoreFile() {
-    this.data = KeyValueData.getKeyValueData();
+  public StoreFile(final Simulator simulator, final RandomGenerator randomGenerator) {
+    this.data = KeyValueData.getKeyValueData(simulator, randomGenerator);
   }
 
   /**
@@ -37,6 +41,21 @@ public class StoreFile {
     stream.write(this.getBytesSize());
   }
 
+  /**
+   * creates and initializes StoreFile of flush replayed from trace, its bytes are already
+   * compressed
+   * @param simulator - simulation this StoreFile belongs to
+   * @param randomGenerator - random stream of store this StoreFile belongs to
+   * @param bytesSize - flushed bytes
+   * @param stream - stream to read/write from/to HDFS during working with storeFiles
+   */
+  public StoreFile(final Simulator simulator, final RandomGenerator randomGenerator,
+      final long bytesSize, final HDFSStream stream) {
+    this(simulator, randomGenerator);
+    this.data.addKeyValuePack(bytesSize);
+    stream.write(this.getBytesSize());
+  }
+
   /**
    * merges two StoreFiles
    * @param other - storeFile to merge with
@@ -54,4 +73,11 @@ public class StoreFile {
   public long getBytesSize() {
     return this.data.getBytesSize();
   }
+
+  /**
+   * @return expected bytes of KeyValues of this storeFile whose TTL is not expired yet
+   */
+  public double getLiveBytesSize() {
+    return this.data.getLiveBytesSize();
+  }
 }
\ No newline at end of file
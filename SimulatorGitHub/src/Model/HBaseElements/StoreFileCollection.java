@@ -1,14 +1,25 @@
 package Model.HBaseElements;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 /**
- * collection of storeFiles sorted by decreasing byte size
+ * collection of storeFiles sorted by decreasing byte size, storeFiles of equal size are in order
+ * they were added.
+ *
+ * StoreFiles are kept in balanced tree, so add/remove/contains take O(log n). Compactors select
+ * files by index, so sorted array snapshot is built on first access after modification and is
+ * shared until next modification - selection on unchanged collection doesn't copy anything.
+ * Copies and sublists are made from snapshot and build their own tree only when they are
+ * modified. Sizes of storeFiles are cached in primitive array together with snapshot, so
+ * compactors can select files by indexes without any allocation. Snapshot is never changed, so
+ * iterator() is safe even if collection is modified while iterating
  * @author ibra
  */
 public class StoreFileCollection implements Iterable<StoreFile> {
@@ -16,57 +27,143 @@ public class StoreFileCollection implements Iterable<StoreFile> {
   private static final Log LOG = LogFactory.getLog(StoreFileCollection.class.getName());
 
   /**
-   * StoreFileCollection is wrap over this list
+   * empty snapshot
    */
-  private final List<StoreFile> storeFiles;
+  private static final StoreFile[] EMPTY = new StoreFile[0];
+
+  /**
+   * sizes of empty snapshot
+   */
+  private static final long[] EMPTY_SIZES = new long[0];
+
+  /**
+   * storeFiles sorted by decreasing size and increasing order of adding, null till collection
+   * made from snapshot is modified
+   */
+  private TreeSet<Entry> entries;
+
+  /**
+   * entry of each storeFile in this collection, to remove storeFile without searching it, null
+   * together with entries
+   */
+  private Map<StoreFile, Entry> index;
+
+  /**
+   * amount of storeFiles added so far - used to order storeFiles with equal size
+   */
+  private long sequence;
+
+  /**
+   * sorted array of storeFiles, null if collection was modified after it was built
+   */
+  private StoreFile[] snapshot;
+
+  /**
+   * sizes of storeFiles in snapshot, null together with snapshot
+   */
+  private long[] sizes;
 
   /**
    * creates empty collection
    */
   public StoreFileCollection() {
-    this.storeFiles = new ArrayList<StoreFile>();
+    this(StoreFileCollection.EMPTY, StoreFileCollection.EMPTY_SIZES, 0, 0);
   }
 
   /**
    * creates collection as clone of storeFileCollection
    */
   public StoreFileCollection(final StoreFileCollection storeFileCollection) {
-    this.storeFiles = new ArrayList<StoreFile>(storeFileCollection.storeFiles);
+    this(storeFileCollection.snapshot(), storeFileCollection.getBytesSizes(), 0,
+      storeFileCollection.size());
+  }
+
+  /**
+   * creates collection of storeFiles from sorted array range
+   * @param storeFiles - sorted array
+   * @param sizes - sizes of storeFiles
+   * @param fromIndex - begin index of range
+   * @param toIndex - index after last index of range
+   */
+  private StoreFileCollection(final StoreFile[] storeFiles, final long[] sizes,
+      final int fromIndex, final int toIndex) {
+    this.entries = null;
+    this.index = null;
+    this.sequence = 0;
+    // storeFiles are already sorted, so range is snapshot of new collection
+    if (fromIndex == 0 && toIndex == storeFiles.length) {
+      this.snapshot = storeFiles;
+      this.sizes = sizes;
+    } else {
+      this.snapshot = Arrays.copyOfRange(storeFiles, fromIndex, toIndex);
+      this.sizes = Arrays.copyOfRange(sizes, fromIndex, toIndex);
+    }
+  }
+
+  /**
+   * builds tree of collection made from snapshot
+   */
+  private void buildTree() {
+    if (this.entries != null) {
+      return;
+    }
+    this.entries = new TreeSet<Entry>();
+    this.index = new HashMap<StoreFile, Entry>();
+    for (int i = 0; i < this.snapshot.length; i++) {
+      final StoreFile storeFile = this.snapshot[i];
+      final Entry entry = new Entry(storeFile, this.sizes[i], this.sequence++);
+      this.entries.add(entry);
+      this.index.put(storeFile, entry);
+    }
+  }
+
+  /**
+   * @return sorted array of storeFiles, must not be changed
+   */
+  private StoreFile[] snapshot() {
+    if (this.snapshot == null) {
+      final StoreFile[] res = new StoreFile[this.entries.size()];
+      final long[] resSizes = new long[res.length];
+      int i = 0;
+      for (final Entry entry : this.entries) {
+        res[i] = entry.storeFile;
+        resSizes[i++] = entry.bytesSize;
+      }
+      this.snapshot = res;
+      this.sizes = resSizes;
+    }
+    return this.snapshot;
   }
 
   /**
-   * creates collection as collection of StoreFiles from storeFileList
+   * @return sizes of storeFiles in this collection in the same order, must not be changed
    */
-  private StoreFileCollection(final List<StoreFile> storeFileList) {
-    this.storeFiles = new ArrayList<StoreFile>(storeFileList);
+  public long[] getBytesSizes() {
+    this.snapshot();
+    return this.sizes;
   }
 
   /**
    * adds storeFile to collection
    * @param storeFile - storeFile to be added
    */
-  synchronized public void add(final StoreFile storeFile) {
-    // if collection is empty or size of storeFile is bigger than any other in this collection, then
-    // we insert it the beginning
-    if (this.storeFiles.isEmpty()
-        || storeFile.getBytesSize() > this.storeFiles.get(0).getBytesSize()) {
-      this.storeFiles.add(0, storeFile);
-    } else {
-      // else find place to insert so that after insert collection to stay sorted
-      for (int i = this.storeFiles.size() - 1; i >= 0; i--) {
-        if (this.storeFiles.get(i).getBytesSize() >= storeFile.getBytesSize()) {
-          this.storeFiles.add(i + 1, storeFile);
-          break;
-        }
-      }
+  public void add(final StoreFile storeFile) {
+    this.buildTree();
+    if (this.index.containsKey(storeFile)) {
+      return;
     }
+    final Entry entry = new Entry(storeFile, storeFile.getBytesSize(), this.sequence++);
+    this.entries.add(entry);
+    this.index.put(storeFile, entry);
+    this.snapshot = null;
+    this.sizes = null;
   }
 
   /**
    * adds all elements from this storeFileCollection
    * @param storeFileCollection - collection to be added to this
    */
-  synchronized public void addAll(final StoreFileCollection storeFileCollection) {
+  public void addAll(final StoreFileCollection storeFileCollection) {
     for (StoreFile storeFile : storeFileCollection) {
       this.add(storeFile);
     }
@@ -76,50 +173,63 @@ public class StoreFileCollection implements Iterable<StoreFile> {
    * @param index index of storeFile to be returned
    * @return storeFile in [index] in this collection
    */
-  synchronized public StoreFile get(final int index) {
-    return this.storeFiles.get(index);
+  public StoreFile get(final int index) {
+    return this.snapshot()[index];
   }
 
   /**
    * removes specified element from the collection
    * @param storeFile - element to be removed from this collection
    */
-  synchronized public void remove(final StoreFile storeFile) {
-    this.storeFiles.remove(storeFile);
+  public void remove(final StoreFile storeFile) {
+    this.buildTree();
+    final Entry entry = this.index.remove(storeFile);
+    if (entry != null) {
+      this.entries.remove(entry);
+      this.snapshot = null;
+      this.sizes = null;
+    }
   }
 
   /**
    * removes all elements from this collection
    */
-  synchronized public void clear() {
-    this.storeFiles.clear();
+  public void clear() {
+    this.entries = null;
+    this.index = null;
+    this.snapshot = StoreFileCollection.EMPTY;
+    this.sizes = StoreFileCollection.EMPTY_SIZES;
   }
 
   /**
    * @param storeFile - storeFile to search
    * @return if collection contains this element
    */
-  synchronized public boolean contains(final StoreFile storeFile) {
-    return this.storeFiles.contains(storeFile);
+  public boolean contains(final StoreFile storeFile) {
+    this.buildTree();
+    return this.index.containsKey(storeFile);
   }
 
   /**
    * @return amount of elements in this collection
    */
-  synchronized public int size() {
-    return this.storeFiles.size();
+  public int size() {
+    return this.snapshot != null ? this.snapshot.length : this.entries.size();
   }
 
   /**
    * @return if collection is empty
    */
-  synchronized public boolean isEmpty() {
-    return this.storeFiles.isEmpty();
+  public boolean isEmpty() {
+    return this.size() == 0;
   }
 
+  /**
+   * @return iterator over snapshot of this collection, it doesn't see later modifications
+   */
   @Override
   public Iterator<StoreFile> iterator() {
-    return this.storeFiles.iterator();
+    return Arrays.asList(this.snapshot()).iterator();
   }
 
   /**
@@ -127,7 +237,51 @@ public class StoreFileCollection implements Iterable<StoreFile> {
    * @param toIndex - index after last index of sublist to be returned
    * @return sublist of this collection of range [fromIndex, toIndex)
    */
-  synchronized public StoreFileCollection subList(final int fromIndex, final int toIndex) {
-    return new StoreFileCollection(this.storeFiles.subList(fromIndex, toIndex));
+  public StoreFileCollection subList(final int fromIndex, final int toIndex) {
+    final StoreFile[] storeFiles = this.snapshot();
+    if (fromIndex < 0 || toIndex > storeFiles.length || fromIndex > toIndex) {
+      throw new IndexOutOfBoundsException("[" + fromIndex + ", " + toIndex + ") of "
+          + storeFiles.length);
+    }
+    return new StoreFileCollection(storeFiles, this.sizes, fromIndex, toIndex);
+  }
+
+  /**
+   * storeFile with its position in order of collection. Size is remembered, so that order doesn't
+   * depend on later changes of storeFile
+   * @author ibra
+   */
+  private static class Entry implements Comparable<Entry> {
+    /**
+     * storeFile
+     */
+    private final StoreFile storeFile;
+
+    /**
+     * size of storeFile when it was added
+     */
+    private final long bytesSize;
+
+    /**
+     * sequence number of adding to collection
+     */
+    private final long sequence;
+
+    private Entry(final StoreFile storeFile, final long bytesSize, final long sequence) {
+      this.storeFile = storeFile;
+      this.bytesSize = bytesSize;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public int compareTo(final Entry other) {
+      if (this.bytesSize != other.bytesSize) {
+        return this.bytesSize > other.bytesSize ? -1 : 1;
+      }
+      if (this.sequence != other.sequence) {
+        return this.sequence < other.sequence ? -1 : 1;
+      }
+      return 0;
+    }
   }
 }
@@ -0,0 +1,269 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import Model.AbstractConfiguration.GetMethod;
+import Model.Compactors.CompactionConfigurations.AbstractCompactionConfiguration;
+import Model.Workloads.Workload;
+import Tools.RandomGenerator;
+
+/**
+ * Phase - part of simulation with its own settings, for example bulk backfill followed by steady
+ * traffic. Simulator runs phases one after another in one run: when phase starts, its changes are
+ * applied to general Configuration of simulation and to compaction configurations of stores, and
+ * major compaction of all stores is forced if phase asks for it. Changes stay till some later
+ * phase changes the same fields. Phase lasts "Duration(ms)", phase with zero duration lasts till
+ * end of simulation.
+ *
+ * Phases can't change fields that are read only when simulation is created (FIXED_FIELDS:
+ * amount of stores, HDFS bandwidth and IO weights, compaction threads, windows of metrics and
+ * stability detection, seed, simulation time, flush trace file), such phase is rejected by check.
+ * Phases can't turn KeyValue TTL on or off, because KeyValues already written don't keep TTL
+ * information then, and can't change "KeyValue TTL bucket(ms)", because indexes of buckets already
+ * written are on scale of the old gap
+ * @author ibra
+ */
+public class Phase {
+
+  private static final Log LOG = LogFactory.getLog(Phase.class.getName());
+
+  /**
+   * field of phase - its length
+   */
+  public static final String DURATION = "Duration(ms)";
+
+  /**
+   * field of phase - should major compaction of all stores be forced at start of phase
+   */
+  public static final String MAJOR_COMPACTION = "Major compaction";
+
+  /**
+   * fields of general Configuration that phases can't change: read only when simulation is created
+   * or, for TTL bucket gap, fixed by data already written
+   */
+  private static final String[] FIXED_FIELDS = { "Compaction algos count",
+      "Read bytes per second from HDFS", "Write bytes per second to HDFS", "xFaster",
+      "Random seed", "Simulation time(ms)", "KeyValue TTL bucket(ms)", "Flush IO weight",
+      "Small compaction IO weight", "Large compaction IO weight", "Major compaction IO weight",
+      "Stores per HDFS", "Large compaction threads", "Small compaction threads",
+      "Stability window(ms)", "Divergence threshold", "Convergence tolerance",
+      "Metrics window(ms)", "Chart max points", "Flush trace file" };
+
+  /**
+   * prefix of fields of compaction configuration of store: "store 2: Compaction ratio"
+   */
+  private static final String STORE_PREFIX = "store ";
+
+  /**
+   * change of one configuration field
+   */
+  private static class Change {
+
+    /**
+     * column family of store whose compaction configuration is changed, -1 for general
+     * Configuration
+     */
+    private final int columnFamily;
+
+    /**
+     * title of field
+     */
+    private final String title;
+
+    /**
+     * new value of field
+     */
+    private final String value;
+
+    private Change(final int columnFamily, final String title, final String value) {
+      this.columnFamily = columnFamily;
+      this.title = title;
+      this.value = value;
+    }
+  }
+
+  /**
+   * name of phase
+   */
+  private final String name;
+
+  /**
+   * length(ms) of phase, 0 if phase lasts till end of simulation
+   */
+  private long duration;
+
+  /**
+   * should major compaction of all stores be forced at start of phase
+   */
+  private boolean majorCompaction;
+
+  /**
+   * changes of configuration fields in order they were set
+   */
+  private final List<Change> changes = new ArrayList<Change>();
+
+  /**
+   * creates phase without changes
+   * @param name - name of phase
+   */
+  public Phase(final String name) {
+    this.name = name;
+    this.duration = 0;
+    this.majorCompaction = false;
+  }
+
+  /**
+   * sets field of phase: its own field (DURATION, MAJOR_COMPACTION), field of compaction
+   * configuration of store ("store N: field") or field of general Configuration. Fields of
+   * configurations are checked by check, when all stores are known
+   * @param title - title of field
+   * @param value - new value of field
+   * @throws IllegalArgumentException if value of own field is incorrect
+   */
+  public void set(final String title, final String value) {
+    if (title.equals(Phase.DURATION)) {
+      try {
+        this.duration = Long.parseLong(value);
+      } catch (final NumberFormatException e) {
+        throw new IllegalArgumentException("incorrect value '" + value + "' of '" + title + "'");
+      }
+      if (this.duration < 0) {
+        throw new IllegalArgumentException("'" + title + "' must not be negative");
+      }
+    } else if (title.equals(Phase.MAJOR_COMPACTION)) {
+      this.majorCompaction = Boolean.parseBoolean(value);
+    } else if (title.startsWith(Phase.STORE_PREFIX) && title.indexOf(':') != -1) {
+      final int colon = title.indexOf(':');
+      final int columnFamily;
+      try {
+        columnFamily = Integer.parseInt(title.substring(Phase.STORE_PREFIX.length(), colon)
+            .trim());
+      } catch (final NumberFormatException e) {
+        throw new IllegalArgumentException("incorrect store in '" + title + "'");
+      }
+      this.changes.add(new Change(columnFamily, title.substring(colon + 1).trim(), value));
+    } else if (title.equals("Compaction algos count")) {
+      throw new IllegalArgumentException("phase can't change amount of stores");
+    } else {
+      this.changes.add(new Change(-1, title, value));
+    }
+  }
+
+  /**
+   * @return name of phase
+   */
+  public String getName() {
+    return this.name;
+  }
+
+  /**
+   * @return length(ms) of phase, 0 if phase lasts till end of simulation
+   */
+  public long getDuration() {
+    return this.duration;
+  }
+
+  /**
+   * @return should major compaction of all stores be forced at start of phase
+   */
+  public boolean isMajorCompaction() {
+    return this.majorCompaction;
+  }
+
+  /**
+   * @return if phase changes general Configuration
+   */
+  public boolean changesConfiguration() {
+    for (final Change change : this.changes) {
+      if (change.columnFamily == -1) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * applies changes of phase
+   * @param configuration - general configuration of simulation
+   * @param compactionConfigurations - compaction configurations of stores, columnFamily is used
+   *          as index
+   */
+  public void apply(final Configuration configuration,
+      final List<AbstractCompactionConfiguration> compactionConfigurations) {
+    for (final Change change : this.changes) {
+      if (change.columnFamily == -1) {
+        configuration.set(change.title, change.value);
+      } else {
+        compactionConfigurations.get(change.columnFamily).set(change.title, change.value);
+      }
+    }
+  }
+
+  /**
+   * checks that phases can be applied in order: fields exist, values are correct, stores exist,
+   * workload can be created, fixed fields and KeyValue TTL mode don't change. Configurations are
+   * not changed
+   * @param phases - phases in order
+   * @param configuration - general configuration before the first phase
+   * @param compactionConfigurations - compaction configurations of stores
+   * @throws IllegalArgumentException if some phase is incorrect
+   */
+  public static void check(final List<Phase> phases, final Configuration configuration,
+      final List<AbstractCompactionConfiguration> compactionConfigurations) {
+    final Configuration scratch = configuration.copy();
+    for (final Phase phase : phases) {
+      try {
+        for (final Change change : phase.changes) {
+          if (change.columnFamily == -1) {
+            scratch.set(change.title, change.value);
+          } else {
+            Phase.check(change, compactionConfigurations);
+          }
+        }
+        if (phase.changesConfiguration()) {
+          new Workload(scratch, new RandomGenerator(scratch, 0));
+        }
+      } catch (final IllegalArgumentException e) {
+        throw new IllegalArgumentException("phase '" + phase.name + "': " + e.getMessage());
+      }
+      for (final String field : Phase.FIXED_FIELDS) {
+        final String value = scratch.getGetFields().get(field).get();
+        if (!value.equals(configuration.getGetFields().get(field).get())) {
+          throw new IllegalArgumentException("phase '" + phase.name + "' can't change '" + field
+              + "' while simulation runs");
+        }
+      }
+      if (scratch.isKeyValuesTTLEnabled() != configuration.isKeyValuesTTLEnabled()) {
+        throw new IllegalArgumentException("phase '" + phase.name
+            + "' can't turn KeyValue TTL on or off");
+      }
+    }
+  }
+
+  /**
+   * checks change of compaction configuration by setting new value and restoring old one
+   * @param change - change of field of compaction configuration of store
+   * @param compactionConfigurations - compaction configurations of stores
+   * @throws IllegalArgumentException if store or field doesn't exist or value is incorrect
+   */
+  private static void check(final Change change,
+      final List<AbstractCompactionConfiguration> compactionConfigurations) {
+    if (change.columnFamily < 0 || change.columnFamily >= compactionConfigurations.size()) {
+      throw new IllegalArgumentException("there is no store " + change.columnFamily);
+    }
+    final AbstractCompactionConfiguration compactionConfiguration = compactionConfigurations
+        .get(change.columnFamily);
+    final GetMethod getMethod = compactionConfiguration.getGetFields().get(change.title);
+    if (getMethod == null) {
+      throw new IllegalArgumentException("unknown configuration field '" + change.title
+          + "' of store " + change.columnFamily);
+    }
+    final String old = getMethod.get();
+    compactionConfiguration.set(change.title, change.value);
+    compactionConfiguration.set(change.title, old);
+  }
+}
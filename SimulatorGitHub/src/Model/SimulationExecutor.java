@@ -0,0 +1,117 @@
+package Model;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * SimulationExecutor - bounded pool of threads that runs simulations.
+ * Simulation is discrete-event and doesn't own any threads - all its stores, compactors and HDFS
+ * are driven by events of one EventQueue, so one simulation needs exactly one thread, no matter
+ * how many stores it has. Simulations of GUI and batch modes are submitted here instead of
+ * starting raw threads, so amount of busy threads never exceeds pool size
+ * @author ibra
+ */
+public class SimulationExecutor {
+
+  private static final Log LOG = LogFactory.getLog(SimulationExecutor.class.getName());
+
+  /**
+   * creates simulation when it is started, so that only simulations that run take memory and files
+   * @author ibra
+   */
+  public interface SimulatorFactory {
+    /**
+     * @return new simulation
+     */
+    public Simulator create();
+  }
+
+  /**
+   * executor shared by whole process, one thread per processor
+   */
+  private static SimulationExecutor shared;
+
+  /**
+   * pool of threads
+   */
+  private final ExecutorService executor;
+
+  /**
+   * creates pool of daemon threads, so that not finished simulations don't keep JVM alive
+   * @param threadsCount - maximal amount of simulations running at the same time
+   */
+  public SimulationExecutor(final int threadsCount) {
+    final AtomicInteger threadNumber = new AtomicInteger(0);
+    this.executor = Executors.newFixedThreadPool(threadsCount, new ThreadFactory() {
+      @Override
+      public Thread newThread(final Runnable runnable) {
+        final Thread thread = new Thread(runnable, "simulation-" + threadNumber.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  /**
+   * @return executor shared by whole process, one thread per processor
+   */
+  synchronized public static SimulationExecutor getShared() {
+    if (SimulationExecutor.shared == null) {
+      SimulationExecutor.shared = new SimulationExecutor(Runtime.getRuntime()
+          .availableProcessors());
+    }
+    return SimulationExecutor.shared;
+  }
+
+  /**
+   * submits simulation, it is started when some thread of pool is free
+   * @param simulator - simulation to run
+   * @param observer - observer of simulation results
+   * @return future of observer, done when simulation is finished or stopped
+   */
+  public <T extends SimulationObserver> Future<T> submit(final Simulator simulator, final T observer) {
+    return this.submit(new SimulatorFactory() {
+      @Override
+      public Simulator create() {
+        return simulator;
+      }
+    }, observer);
+  }
+
+  /**
+   * submits simulation that is created by factory in thread of pool right before it is started,
+   * so that waiting simulations don't hold their regions, metrics and trace files
+   * @param factory - creates simulation to run
+   * @param observer - observer of simulation results
+   * @return future of observer, done when simulation is finished or stopped
+   */
+  public <T extends SimulationObserver> Future<T> submit(final SimulatorFactory factory,
+      final T observer) {
+    return this.executor.submit(new Callable<T>() {
+      @Override
+      public T call() {
+        try {
+          factory.create().start(observer);
+        } catch (final RuntimeException e) {
+          LOG.error("simulation failed", e);
+          throw e;
+        }
+        return observer;
+      }
+    });
+  }
+
+  /**
+   * no new simulations are accepted, submitted ones are finished
+   */
+  public void shutdown() {
+    this.executor.shutdown();
+  }
+}
@@ -0,0 +1,42 @@
+package Model;
+
+import java.util.List;
+
+/**
+ * SimulationObserver - receives results of simulation while it goes.
+ * Simulator knows nothing about how results are shown: GUI plots them on charts, 
+ * batch runner writes them to file
+ * @author ibra
+ */
+public interface SimulationObserver {
+
+  /**
+   * simulation is started
+   * @param storeTitles - titles of each store, columnFamily is used as index
+   */
+  public void started(List<String> storeTitles);
+
+  /**
+   * new values of amplification factors
+   * @param time - simulated time(ms)
+   * @param writeAmplification - write amplification of each store, columnFamily is used as index
+   * @param readAmplification - read amplification of each store, columnFamily is used as index
+   * @param spaceAmplification - space amplification of each store, columnFamily is used as index
+   */
+  public void update(long time, List<Double> writeAmplification, List<Double> readAmplification,
+      List<Double> spaceAmplification);
+
+  /**
+   * phase of simulation is started, the first phase starts before the first update
+   * @param time - simulated time(ms)
+   * @param name - name of phase
+   */
+  public void phaseStarted(long time, String name);
+
+  /**
+   * simulation is finished
+   * @param stability - DIVERGED or CONVERGED if simulation was ended early by StabilityDetector,
+   *          RUNNING otherwise
+   */
+  public void finished(StabilityDetector.Stability stability);
+}
@@ -1,135 +1,450 @@
 package Model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import GUI.Charts.AdvancedTimeChart;
-import GUI.Charts.SimpleTimeChart;
+import Model.Compactors.CompactionQueueStatistics;
 import Model.Compactors.CompactionConfigurations.AbstractCompactionConfiguration;
+import Model.HBaseElements.KeyValuePack;
 import Model.HBaseElements.Region;
+import Model.Workloads.FlushTrace;
+import Model.Workloads.Workload;
+import Tools.Event;
+import Tools.EventQueue;
 import Tools.Helper;
+import Tools.IOStatistics;
+import Tools.LatencyHistogram;
 import Tools.RandomGenerator;
 
 /**
- * Simulator - simulates HBase. Simulator is enum-based Singleton 
- * - Adds data to HBase with some rate (set in configuration) 
- * - plots graphics about write amplification, read amplification 
+ * Simulator - simulates HBase. Each Simulator object is independent simulation context: it owns
+ * its region, configuration snapshot, random generator, virtual clock and metrics, so any number of
+ * simulations can run in one JVM in parallel threads
+ * - simulation is discrete-event: all work is done by events of EventQueue in simulated time
+ * - Adds data to HBase with rate, skew and load shape given by Workload. When stores block puts
+ * and too many puts are waiting ("Max pending puts"), adding pauses till some of them are done, so
+ * ingest throughput drops like throughput of HBase client. Each put goes to random store, or with
+ * "Identical workload" the same put goes to every store, so stores are compared on one put stream
+ * - sends write amplification, read amplification, space amplification to SimulationObserver
+ * (charts or file)
+ * - ends simulation early when StabilityDetector finds it diverged or converged
+ * - with "Flush trace file" replays flushes of real region server instead of puts: each flush of
+ * trace is written as storeFile at its time, memstores and puts are not simulated
+ * - runs phases of scenario one after another, metrics of each phase are written to log
  * - provides way to choose different compaction algorithms and different configurations for each
  * store to analyze results separately
  * @author ibra
  */
-public enum Simulator {
-  INSTANCE;
+public class Simulator {
 
   private static final Log LOG = LogFactory.getLog(Simulator.class.getName());
 
   /**
-   * simulator simulates HBase work by working with one Region with multiple Stores
+   * general configuration of this simulation
+   */
+  private final Configuration configuration;
+
+  /**
+   * root of random streams of this simulation, seeded by "Random seed". Streams are split from it
+   * in fixed order: workload first, then each store, so they don't depend on each other
+   */
+  private final RandomGenerator randomStreams;
+
+  /**
+   * random stream of workload - choice of store and size of each put
+   */
+  private final RandomGenerator randomGenerator;
+
+  /**
+   * rate, target stores and sizes of puts, created again when phase changes configuration
+   */
+  private Workload workload;
+
+  /**
+   * flushes replayed instead of puts, null if "Flush trace file" is not set. Trace file is open
+   * only while simulation runs
    */
-  private Region region;
+  private FlushTrace flushTrace;
+
+  /**
+   * virtual clock and queue of timed events - the whole simulation is driven by it
+   */
+  private final EventQueue eventQueue;
 
   /**
    * compaction configurations for each store in region. AbstractCompactionConfiguration knows what compaction algorithm to use and contains configuration for it
    */
-  private List<AbstractCompactionConfiguration> compactorsConfigurations;
+  private final List<AbstractCompactionConfiguration> compactorsConfigurations;
 
   /**
-   * flag for stopping simulator. Should be set only from ConfigurationFrame
+   * phases of simulation in order, empty if simulation has no phases
    */
-  private final AtomicBoolean stop = new AtomicBoolean(false);
+  private final List<Phase> phases;
+
+  /**
+   * index of current phase, -1 before the first phase
+   */
+  private int phaseIndex;
+
+  /**
+   * bytes written by flushes and compactions and read amplification of each Store
+   */
+  private final AmplificationMetrics metrics;
 
   /**
-   * Write amplification graph (WAF) - a significant factor in write performance WAF = bytes written
-   * to disk during compactions / bytes written to disk during flushes
+   * statistics of HDFS streams of all stores by IOPriority class
    */
-  private SimpleTimeChart writeAmplificationsTimeChart;
+  private final IOStatistics ioStatistics;
 
   /**
-   * Read amplification graph (RAF) - a significant factor in read performance WAF = amount of
-   * storeFiles RAF is number of files you need to check to read some KeyValue (worst case is just
-   * amount of StoreFiles)
+   * statistics of waiting in compaction queues of all stores
    */
-  private AdvancedTimeChart readAmplificationTimeChart;
+  private final CompactionQueueStatistics compactionQueueStatistics;
 
   /**
-   * this list contains sum of bytes, that were written to disk during flushes for each Store
+   * finds if simulation diverged or converged
    */
-  private List<Long> flushWrites;
+  private final StabilityDetector stabilityDetector;
 
   /**
-   * this list contains sum of bytes, that were written to disk during compactions for each Store
+   * latency(ms) of puts - queue wait plus stall - of each Store
    */
-  private List<Long> compactionWrites;
+  private final List<LatencyHistogram> putLatencies;
 
   /**
-   * initializes and starts simulator with some configurations
+   * amount of puts that are done
+   */
+  private long putsCount;
+
+  /**
+   * amount of blocked puts waiting in queues of stores
+   */
+  private long pendingPutsCount;
+
+  /**
+   * periodic event to add data to HBase, null if flushes are replayed from trace
+   */
+  private Event putGenerator;
+
+  /**
+   * is adding data paused by back-pressure
+   */
+  private boolean putsPaused;
+
+  /**
+   * simulator simulates HBase work by working with one Region with multiple Stores
+   */
+  private final Region region;
+
+  /**
+   * flag for stopping simulator
+   */
+  private final AtomicBoolean stop = new AtomicBoolean(false);
+
+  /**
+   * observer of simulation results - charts in GUI or output file in batch mode
+   */
+  private SimulationObserver observer;
+
+  /**
+   * creates and initializes simulation
+   * @param configuration - general configuration. Simulation works with its copy, so it can be
+   *          changed while simulation goes
    * @param compactorsConfigurations - compaction configurations list (for each store)
    */
-  public void start(final List<AbstractCompactionConfiguration> compactorsConfigurations) {
+  public Simulator(final Configuration configuration,
+      final List<AbstractCompactionConfiguration> compactorsConfigurations) {
+    this(configuration, compactorsConfigurations, Collections.<Phase> emptyList());
+  }
+
+  /**
+   * creates and initializes simulation with phases
+   * @param configuration - general configuration. Simulation works with its copy, so it can be
+   *          changed while simulation goes
+   * @param compactorsConfigurations - compaction configurations list (for each store), phases
+   *          change them
+   * @param phases - phases of simulation in order, checked by Phase.check
+   */
+  public Simulator(final Configuration configuration,
+      final List<AbstractCompactionConfiguration> compactorsConfigurations,
+      final List<Phase> phases) {
+    this.configuration = configuration.copy();
+    this.randomStreams = new RandomGenerator(this.configuration,
+        this.configuration.getRandomSeed());
+    this.randomGenerator = this.randomStreams.split();
+    this.workload = this.createWorkload(this.randomGenerator);
+    this.flushTrace = null;
+    this.eventQueue = new EventQueue();
     this.compactorsConfigurations = compactorsConfigurations;
-    this.region = new Region((int) Configuration.INSTANCE.getCompactionAlgosCount());
-    this.readAmplificationTimeChart = AdvancedTimeChart.go("Stores read amplification", "Time",
-      "Stores read amplification", this.region.getStoreTitles());
-    this.writeAmplificationsTimeChart = SimpleTimeChart.go("Stores write amplification", "Time",
-      "Write amplification", this.region.getStoreTitles());
+    this.phases = phases;
+    this.phaseIndex = -1;
 
-    this.flushWrites = new ArrayList<Long>();
-    this.compactionWrites = new ArrayList<Long>();
+    this.metrics = new AmplificationMetrics(compactorsConfigurations.size(),
+        this.configuration.getMetricsWindow());
+    this.putLatencies = new ArrayList<LatencyHistogram>();
 
     for (int i = 0; i < compactorsConfigurations.size(); i++) {
-      this.flushWrites.add(0L);
-      this.compactionWrites.add(0L);
+      this.putLatencies.add(new LatencyHistogram());
+    }
+    this.putsCount = 0;
+    this.pendingPutsCount = 0;
+    this.putsPaused = false;
+    this.ioStatistics = new IOStatistics(compactorsConfigurations.size());
+    this.compactionQueueStatistics = new CompactionQueueStatistics();
+    this.stabilityDetector = new StabilityDetector(this.configuration);
+
+    this.region = new Region(this, (int) this.configuration.getCompactionAlgosCount());
+  }
+
+  /**
+   * starts simulation and returns when it is finished or stopped
+   * @param observer - observer of simulation results
+   */
+  public void start(final SimulationObserver observer) {
+    this.observer = observer;
+    LOG.info("random seed = " + this.configuration.getRandomSeed());
+    this.observer.started(this.region.getStoreTitles());
+    if (!this.configuration.getFlushTraceFile().isEmpty()) {
+      this.flushTrace = new FlushTrace(this.configuration);
     }
+    try {
+      this.run();
+    } finally {
+      if (this.flushTrace != null) {
+        this.flushTrace.close();
+      }
+    }
+
+    this.metrics.advance(this.eventQueue.getCurrentTime());
+    this.metrics.log();
+    if (this.phaseIndex >= 0) {
+      this.metrics.logPhase(this.phases.get(this.phaseIndex).getName(),
+        this.eventQueue.getCurrentTime());
+    }
+    this.ioStatistics.log(this.eventQueue.getCurrentTime());
+    this.compactionQueueStatistics.log();
+    if (this.flushTrace == null) {
+      this.logPuts();
+    }
+    this.observer.finished(this.stabilityDetector.getStability());
+  }
 
+  /**
+   * schedules periodic events and executes events till simulation is over, diverged, converged or
+   * stopped
+   */
+  private void run() {
     /**
-     * separate thread to plot charts
+     * periodic event to send results to observer
      */
-    new Thread(new Runnable() {
+    this.eventQueue.schedule(0, new Event() {
       @Override
-      public void run() {
-        while (!Simulator.this.isStopped()) {
-          Simulator.this.writeAmplificationsTimeChart.update(System.currentTimeMillis(),
-            Simulator.divide(Simulator.this.compactionWrites, Simulator.this.flushWrites));
-          Simulator.this.readAmplificationTimeChart.update(System.currentTimeMillis(),
-            Simulator.this.region.getReadAmplification());
-
-          Helper.chartSleep();
-        }
+      public void execute() {
+        Simulator.this.metrics.advance(Simulator.this.eventQueue.getCurrentTime());
+        Simulator.this.observer.update(Simulator.this.eventQueue.getCurrentTime(),
+          Simulator.this.getWriteAmplification(), Simulator.this.getReadAmplification(),
+          Simulator.this.getSpaceAmplification());
+        Simulator.this.sampleStability();
+
+        Simulator.this.eventQueue.scheduleAfter(Simulator.this.configuration.CHARTS_UPDATE_GAP,
+          this);
       }
-    }).start();
+    });
+
+    if (this.flushTrace != null) {
+      this.eventQueue.schedule(this.flushTrace.getTime(), new FlushReplayer());
+    } else {
+      this.putGenerator = new PutGenerator();
+      this.eventQueue.schedule(0, this.putGenerator);
+    }
+    if (!this.phases.isEmpty()) {
+      this.startPhase(0);
+    }
 
     /**
-     * separate thread to add data to HBase
+     * main loop - executes events one by one till simulation time is over. If xFaster is set, 
+     * we wait for the next event so that simulated time goes xFaster times faster than real time
      */
-    long deadline = System.currentTimeMillis();
-    long add = 0;
-    while (!Simulator.this.isStopped()) {
-      this.region.put(RandomGenerator.getNextColumnFamily());
-
-      final long waitTime = (add + Configuration.INSTANCE.getFlushGap()
-          * Configuration.INSTANCE.getKvsPerPut() * Configuration.INSTANCE.getKeyValueByteSize())
-          / (Configuration.INSTANCE.getxFaster() * Configuration.INSTANCE.getCompactionAlgosCount() * Configuration.INSTANCE
-              .getMemstoreBytesSize());
-      add = (add + Configuration.INSTANCE.getFlushGap() * Configuration.INSTANCE.getKvsPerPut()
-          * Configuration.INSTANCE.getKeyValueByteSize())
-          % (Configuration.INSTANCE.getxFaster() * Configuration.INSTANCE.getCompactionAlgosCount() * Configuration.INSTANCE
-              .getMemstoreBytesSize());
-
-      deadline += waitTime;
-      Helper.sleepTo(deadline);
-
-      final long d = System.currentTimeMillis() - deadline;
-      // random is used not to log too much if we already overslept
-      if (d > Math.max(100, waitTime) && RandomGenerator.getRandomInt(250) == 0) {
-        LOG.info("OVERSLEPT = " + d);
+    final long startTime = System.currentTimeMillis();
+    final long simulationTime = this.configuration.getSimulationTime();
+    final long xFaster = this.configuration.getxFaster();
+    while (!this.isStopped()) {
+      if (simulationTime > 0 && this.eventQueue.getNextEventTime() > simulationTime) {
+        break;
+      }
+      if (xFaster > 0) {
+        Helper.sleepTo(startTime + this.eventQueue.getNextEventTime() / xFaster);
+      }
+      if (!this.eventQueue.executeNext()) {
+        break;
       }
+      // converged phase ends simulation only if no phase follows it
+      final StabilityDetector.Stability stability = this.stabilityDetector.getStability();
+      if (stability == StabilityDetector.Stability.DIVERGED
+          || (stability == StabilityDetector.Stability.CONVERGED
+              && this.phaseIndex + 1 >= this.phases.size())) {
+        break;
+      }
+    }
+  }
+
+  /**
+   * periodic event to add data to HBase
+   */
+  private class PutGenerator extends Event {
+    @Override
+    public void execute() {
+      final Workload workload = Simulator.this.workload;
+      final long time = Simulator.this.eventQueue.getCurrentTime();
+      if (workload.isPutDue()) {
+        final KeyValuePack pack = new KeyValuePack(time, workload.getKeyValuePackBytesSize());
+        if (Simulator.this.configuration.isIdenticalWorkload()) {
+          Simulator.this.region.putToAllStores(pack);
+        } else {
+          Simulator.this.region.put(workload.getNextColumnFamily(time), pack);
+        }
+        if (Simulator.this.pendingPutsCount >= Simulator.this.configuration.getMaxPendingPuts()) {
+          // back-pressure: client waits till some blocked puts are done
+          Simulator.this.putsPaused = true;
+          return;
+        }
+      }
+      Simulator.this.eventQueue.scheduleAfter(workload.getNextGap(time), this);
+    }
+  }
+
+  /**
+   * event of the next flush of trace. When trace is over and simulation time is not set,
+   * simulation is stopped
+   */
+  private class FlushReplayer extends Event {
+    @Override
+    public void execute() {
+      final FlushTrace trace = Simulator.this.flushTrace;
+      Simulator.this.region.flush(trace.getColumnFamily(), trace.getBytesSize());
+      if (trace.next()) {
+        Simulator.this.eventQueue.schedule(trace.getTime(), this);
+      } else if (Simulator.this.configuration.getSimulationTime() <= 0) {
+        LOG.info("flush trace is over at " + trace.getTime() + " ms");
+        Simulator.this.stop();
+      }
+    }
+  }
+
+  /**
+   * starts phase: writes metrics of previous phase to log, applies changes of phase, forces major
+   * compactions if phase asks for it and schedules start of next phase
+   * @param index - index of phase
+   */
+  private void startPhase(final int index) {
+    final long time = this.eventQueue.getCurrentTime();
+    if (this.phaseIndex >= 0) {
+      this.metrics.logPhase(this.phases.get(this.phaseIndex).getName(), time);
+    }
+    final Phase phase = this.phases.get(index);
+    this.phaseIndex = index;
+    LOG.info("phase '" + phase.getName() + "' started at " + time + " ms");
+
+    phase.apply(this.configuration, this.compactorsConfigurations);
+    if (phase.changesConfiguration()) {
+      // rate of puts may be changed, so the next put is planned by new workload
+      this.workload = new Workload(this.configuration, this.randomGenerator);
+      if (this.putGenerator != null && !this.putsPaused) {
+        this.eventQueue.cancel(this.putGenerator);
+        this.putGenerator = new PutGenerator();
+        this.eventQueue.scheduleAfter(this.workload.getNextGap(time), this.putGenerator);
+      }
+    }
+    if (phase.isMajorCompaction()) {
+      this.region.forceMajorCompaction();
+    }
+    this.metrics.startPhase(time);
+    this.stabilityDetector.restart(time);
+    this.observer.phaseStarted(time, phase.getName());
+
+    if (phase.getDuration() > 0 && index + 1 < this.phases.size()) {
+      this.eventQueue.scheduleAfter(phase.getDuration(), new Event() {
+        @Override
+        public void execute() {
+          Simulator.this.startPhase(index + 1);
+        }
+      });
     }
   }
 
+  /**
+   * @param randomGenerator - random stream of workload
+   * @return new workload of this simulation
+   */
+  private Workload createWorkload(final RandomGenerator randomGenerator) {
+    return new Workload(this.configuration, randomGenerator);
+  }
+
+  /**
+   * @return new workload equal to one this simulation starts with - the same rate functions and
+   *         bursts drawn from the same workload stream - but with its own state, so it can be
+   *         asked about rates without changing puts of simulation
+   */
+  public Workload copyWorkload() {
+    return this.createWorkload(new RandomGenerator(this.configuration, this.configuration
+        .getRandomSeed()).split());
+  }
+
+  /**
+   * @return general configuration of this simulation
+   */
+  public Configuration getConfiguration() {
+    return this.configuration;
+  }
+
+  /**
+   * @return random stream of workload of this simulation
+   */
+  public RandomGenerator getRandomGenerator() {
+    return this.randomGenerator;
+  }
+
+  /**
+   * @return new random stream split from root stream of this simulation, stores call it in order
+   *         of columnFamily while region is created
+   */
+  public RandomGenerator splitRandomGenerator() {
+    return this.randomStreams.split();
+  }
+
+  /**
+   * @return event queue of running simulation - its virtual clock and timed events
+   */
+  public EventQueue getEventQueue() {
+    return this.eventQueue;
+  }
+
+  /**
+   * @return current simulated time(ms)
+   */
+  public long getCurrentTime() {
+    return this.eventQueue.getCurrentTime();
+  }
+
+  /**
+   * @return statistics of HDFS streams of all stores by IOPriority class
+   */
+  public IOStatistics getIOStatistics() {
+    return this.ioStatistics;
+  }
+
+  /**
+   * @return statistics of waiting in compaction queues of all stores
+   */
+  public CompactionQueueStatistics getCompactionQueueStatistics() {
+    return this.compactionQueueStatistics;
+  }
+
   /**
    * @param columnFamily - column family of store
    * @return compaction info and configuration for each store
@@ -139,25 +454,49 @@ public enum Simulator {
   }
 
   /**
-   * @param list1
-   * @param list2
-   * @return list that contains division of values in lists as list1Value/list2Value
+   * @return write amplification of each store, columnFamily is used as index - over the last
+   *         finished metrics window if "Metrics window(ms)" is set, since start otherwise
+   */
+  public List<Double> getWriteAmplification() {
+    return this.metrics.getObservedWriteAmplification();
+  }
+
+  /**
+   * @return read amplification of each store, columnFamily is used as index - time-weighted
+   *         average over the last finished metrics window if "Metrics window(ms)" is set, current
+   *         otherwise
+   */
+  public List<Double> getReadAmplification() {
+    return this.metrics.getObservedReadAmplification();
+  }
+
+  /**
+   * @return space amplification of each store, columnFamily is used as index - bytes store holds
+   *         on disk (including storeFiles being compacted and outputs of running compactions) /
+   *         expected bytes of not expired KeyValues in its storeFiles
    */
-  private static List<Double> divide(final List<Long> list1, final List<Long> list2) {
+  public List<Double> getSpaceAmplification() {
     final List<Double> res = new ArrayList<Double>();
-    for (int i = 0; i < list1.size(); i++) {
-      res.add((double) (list1.get(i)) / list2.get(i));
+    for (int i = 0; i < this.compactorsConfigurations.size(); i++) {
+      res.add((double) this.metrics.getDiskUsage(i) / this.region.getLiveBytes(i));
     }
     return res;
   }
 
+  /**
+   * @return write and read amplification metrics of each store
+   */
+  public AmplificationMetrics getMetrics() {
+    return this.metrics;
+  }
+
   /**
    * event - flush occurred in some store
    * @param columnFamily - columnFamily of store where flush occurred
    * @param byteSize size of bytes written to disk during this flush
    */
-  synchronized public void flushOccurred(final int columnFamily, final long byteSize) {
-    this.flushWrites.set(columnFamily, this.flushWrites.get(columnFamily) + byteSize);
+  public void flushOccurred(final int columnFamily, final long byteSize) {
+    this.metrics.flushOccurred(columnFamily, byteSize, this.eventQueue.getCurrentTime());
   }
 
   /**
@@ -165,8 +504,125 @@ public enum Simulator {
    * @param columnFamily - columnFamily of store where compaction occurred
    * @param byteSize size of bytes written to disk during this compaction
    */
-  synchronized public void compactionOccurred(final int columnFamily, final long byteSize) {
-    this.compactionWrites.set(columnFamily, this.compactionWrites.get(columnFamily) + byteSize);
+  public void compactionOccurred(final int columnFamily, final long byteSize) {
+    this.metrics.compactionOccurred(columnFamily, byteSize, this.eventQueue.getCurrentTime());
+  }
+
+  /**
+   * event - bytes some store holds on disk changed
+   * @param columnFamily - columnFamily of store
+   * @param bytesSize - bytes store holds on disk now
+   */
+  public void diskUsageChanged(final int columnFamily, final long bytesSize) {
+    this.metrics.diskUsageChanged(columnFamily, bytesSize);
+  }
+
+  /**
+   * event - read amplification (storeFiles count) of some store changed
+   * @param columnFamily - columnFamily of store
+   * @param readAmplification - new read amplification
+   */
+  public void readAmplificationChanged(final int columnFamily, final long readAmplification) {
+    this.metrics.readAmplificationChanged(columnFamily, readAmplification, this.eventQueue
+        .getCurrentTime());
+  }
+
+  /**
+   * event - put was done in some store
+   * @param columnFamily - columnFamily of store where put was done
+   * @param latency - time(ms) from put arrival till it was done
+   */
+  public void putOccurred(final int columnFamily, final long latency) {
+    this.putLatencies.get(columnFamily).record(latency);
+    this.putsCount++;
+  }
+
+  /**
+   * event - put was blocked and waits in queue of store
+   */
+  public void putBlocked() {
+    this.pendingPutsCount++;
+  }
+
+  /**
+   * event - blocked put was taken from queue of store. If adding data was paused by
+   * back-pressure, it is resumed
+   */
+  public void putUnblocked() {
+    this.pendingPutsCount--;
+    if (this.putsPaused && this.pendingPutsCount < this.configuration.getMaxPendingPuts()) {
+      this.putsPaused = false;
+      this.eventQueue.scheduleAfter(0, this.putGenerator);
+    }
+  }
+
+  /**
+   * @return amount of puts that are done
+   */
+  public long getPutsCount() {
+    return this.putsCount;
+  }
+
+  /**
+   * @param columnFamily - column family of store
+   * @return amount of storeFiles of store that wait in compaction queue or are being compacted -
+   *         it grows without limit when compactions can't keep up with flushes
+   */
+  public long getCompactingFilesCount(final int columnFamily) {
+    return this.region.getCompactingFilesCount(columnFamily);
+  }
+
+  /**
+   * @return state of simulation found by StabilityDetector - RUNNING if simulation went till
+   *         its end
+   */
+  public StabilityDetector.Stability getStability() {
+    return this.stabilityDetector.getStability();
+  }
+
+  /**
+   * gives current state of all stores to StabilityDetector
+   */
+  private void sampleStability() {
+    if (!this.stabilityDetector.isEnabled()) {
+      return;
+    }
+    final int storesCount = this.compactorsConfigurations.size();
+    final StabilityDetector.Sample sample = new StabilityDetector.Sample(
+        this.eventQueue.getCurrentTime(), storesCount);
+    for (int i = 0; i < storesCount; i++) {
+      sample.flushWrites[i] = this.metrics.getFlushWrites(i);
+      sample.flushesCounts[i] = this.metrics.getFlushesCount(i);
+      sample.compactionWrites[i] = this.metrics.getCompactionWrites(i);
+      sample.readAmplification[i] = this.metrics.getReadAmplification(i);
+      sample.compactingBytes[i] = this.region.getCompactingBytes(i);
+      sample.storeFilesCounts[i] = this.region.getStoreFilesCount(i);
+    }
+    this.stabilityDetector.add(sample);
+  }
+
+  /**
+   * @param columnFamily - column family of store
+   * @return latency(ms) of puts - queue wait plus stall - of store
+   */
+  public LatencyHistogram getPutLatency(final int columnFamily) {
+    return this.putLatencies.get(columnFamily);
+  }
+
+  /**
+   * writes ingest throughput and put latency percentiles of each store to log
+   */
+  private void logPuts() {
+    final long time = this.eventQueue.getCurrentTime();
+    LOG.info("ingest: " + this.putsCount + " puts, throughput = " + this.putsCount * 1000.0
+        * this.configuration.getKvsPerPut() * this.configuration.getKeyValueByteSize() / time
+        + " bytes/s");
+    for (int i = 0; i < this.putLatencies.size(); i++) {
+      final LatencyHistogram latency = this.putLatencies.get(i);
+      LOG.info("store " + i + " put latency: p50 = " + latency.getValueAtQuantile(0.5)
+          + " ms, p99 = " + latency.getValueAtQuantile(0.99) + " ms, p999 = "
+          + latency.getValueAtQuantile(0.999) + " ms, max = " + latency.getMax() + " ms");
+    }
   }
 
   /**
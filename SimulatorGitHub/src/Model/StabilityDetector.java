@@ -0,0 +1,307 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * StabilityDetector - watches simulation over sliding window of simulated time ("Stability
+ * window(ms)" in Configuration) and finds if simulation diverged or converged, so that it can be
+ * ended early instead of going till Simulation time.
+ *
+ * Simulation is diverged when compactions of some store can't keep up with flushes: during window
+ * compaction backlog (bytes of storeFiles queued or being compacted) grows by more than "Divergence
+ * threshold" part of bytes flushed and storeFiles count grows by more than this part of flushes
+ * count. Growth is least squares trend over samples of window, so one large compaction waiting in
+ * queue doesn't look like divergence. Both must grow, because storeFiles count of some algorithms
+ * (level based) grows with data even when compactions keep up.
+ *
+ * Simulation is converged when write amplification (compaction writes / flush writes during
+ * window) and time-averaged read amplification of each store over window differ from ones over
+ * previous window by at most "Convergence tolerance" part. Windows compared for convergence don't
+ * overlap.
+ *
+ * Samples are taken on each update of SimulationObserver
+ * @author ibra
+ */
+public class StabilityDetector {
+
+  private static final Log LOG = LogFactory.getLog(StabilityDetector.class.getName());
+
+  /**
+   * state of simulation found by detector
+   * @author ibra
+   */
+  public enum Stability {
+    RUNNING, DIVERGED, CONVERGED;
+  }
+
+  /**
+   * state of all stores at some simulated time
+   * @author ibra
+   */
+  static class Sample {
+    /**
+     * simulated time(ms) of sample
+     */
+    final long time;
+
+    /**
+     * bytes written by flushes of each store so far, columnFamily is used as index
+     */
+    final long[] flushWrites;
+
+    /**
+     * amount of flushes of each store so far
+     */
+    final long[] flushesCounts;
+
+    /**
+     * bytes written by compactions of each store so far
+     */
+    final long[] compactionWrites;
+
+    /**
+     * read amplification of each store
+     */
+    final double[] readAmplification;
+
+    /**
+     * compaction backlog(bytes) of each store
+     */
+    final long[] compactingBytes;
+
+    /**
+     * storeFiles count of each store, including storeFiles that are being compacted
+     */
+    final long[] storeFilesCounts;
+
+    /**
+     * creates sample with zero values
+     * @param time - simulated time(ms) of sample
+     * @param storesCount - amount of stores
+     */
+    Sample(final long time, final int storesCount) {
+      this.time = time;
+      this.flushWrites = new long[storesCount];
+      this.flushesCounts = new long[storesCount];
+      this.compactionWrites = new long[storesCount];
+      this.readAmplification = new double[storesCount];
+      this.compactingBytes = new long[storesCount];
+      this.storeFilesCounts = new long[storesCount];
+    }
+  }
+
+  /**
+   * length(ms) of window, 0 if detection is off
+   */
+  private final long window;
+
+  /**
+   * part of flushed bytes and files that backlog may grow by during window
+   */
+  private final double divergenceThreshold;
+
+  /**
+   * part that amplification may change by between windows of converged simulation
+   */
+  private final double convergenceTolerance;
+
+  /**
+   * samples of window in order of time, the first one is at least window before the last one
+   * when window is full
+   */
+  private final List<Sample> samples = new ArrayList<Sample>();
+
+  /**
+   * write amplification of each store over previous window of convergence check, null before
+   * first check
+   */
+  private double[] previousWriteAmplification;
+
+  /**
+   * read amplification of each store over previous window of convergence check
+   */
+  private double[] previousReadAmplification;
+
+  /**
+   * simulated time(ms) of next convergence check
+   */
+  private long convergenceCheckTime;
+
+  /**
+   * state of simulation
+   */
+  private Stability stability;
+
+  /**
+   * @param configuration - general configuration of simulation
+   */
+  public StabilityDetector(final Configuration configuration) {
+    this.window = configuration.getStabilityWindow();
+    this.divergenceThreshold = configuration.getDivergenceThreshold();
+    this.convergenceTolerance = configuration.getConvergenceTolerance();
+    this.previousWriteAmplification = null;
+    this.previousReadAmplification = null;
+    this.convergenceCheckTime = this.window;
+    this.stability = Stability.RUNNING;
+  }
+
+  /**
+   * @return if any detection is on, samples are not needed otherwise
+   */
+  public boolean isEnabled() {
+    return this.window > 0 && (this.divergenceThreshold > 0 || this.convergenceTolerance > 0);
+  }
+
+  /**
+   * @return state of simulation, it doesn't change after simulation is diverged or converged
+   */
+  public Stability getStability() {
+    return this.stability;
+  }
+
+  /**
+   * starts detection again at start of phase: samples of previous phase are dropped and converged
+   * simulation runs again, diverged one stays diverged
+   * @param time - current simulated time(ms)
+   */
+  void restart(final long time) {
+    if (this.stability == Stability.DIVERGED) {
+      return;
+    }
+    this.samples.clear();
+    this.previousWriteAmplification = null;
+    this.previousReadAmplification = null;
+    this.convergenceCheckTime = time + this.window;
+    this.stability = Stability.RUNNING;
+  }
+
+  /**
+   * adds sample to window and checks if simulation is diverged or converged
+   * @param sample - state of all stores at current simulated time
+   */
+  void add(final Sample sample) {
+    if (!this.isEnabled() || this.stability != Stability.RUNNING) {
+      return;
+    }
+    this.samples.add(sample);
+    while (this.samples.size() > 1 && this.samples.get(1).time <= sample.time - this.window) {
+      this.samples.remove(0);
+    }
+    final Sample first = this.samples.get(0);
+    if (sample.time - first.time < this.window) {
+      return;
+    }
+
+    if (this.divergenceThreshold > 0) {
+      this.checkDivergence(first, sample);
+    }
+    if (this.stability == Stability.RUNNING && this.convergenceTolerance > 0
+        && sample.time >= this.convergenceCheckTime) {
+      this.checkConvergence(first, sample);
+      this.convergenceCheckTime = sample.time + this.window;
+    }
+  }
+
+  /**
+   * checks if backlog of some store grows faster than threshold
+   * @param first - the first sample of window
+   * @param last - the last sample of window
+   */
+  private void checkDivergence(final Sample first, final Sample last) {
+    final long span = last.time - first.time;
+    for (int i = 0; i < last.flushWrites.length; i++) {
+      final long flushed = last.flushWrites[i] - first.flushWrites[i];
+      final long flushes = last.flushesCounts[i] - first.flushesCounts[i];
+      if (flushes == 0) {
+        continue;
+      }
+      final double bytesGrowth = this.getTrend(i, true) * span;
+      final double filesGrowth = this.getTrend(i, false) * span;
+      if (bytesGrowth > this.divergenceThreshold * flushed
+          && filesGrowth > this.divergenceThreshold * flushes) {
+        LOG.info("simulation diverged at " + last.time + " ms: compaction backlog of store " + i
+            + " grew by " + Math.round(bytesGrowth) + " bytes and " + Math.round(filesGrowth)
+            + " storeFiles while " + flushed + " bytes in " + flushes + " flushes were flushed");
+        this.stability = Stability.DIVERGED;
+        return;
+      }
+    }
+  }
+
+  /**
+   * @param columnFamily - column family of store
+   * @param bytes - trend of compaction backlog bytes if true, of storeFiles count otherwise
+   * @return least squares slope(per ms) of value over samples of window
+   */
+  private double getTrend(final int columnFamily, final boolean bytes) {
+    final int count = this.samples.size();
+    double meanTime = 0;
+    double meanValue = 0;
+    for (final Sample sample : this.samples) {
+      meanTime += (double) sample.time / count;
+      meanValue += (double) this.getValue(sample, columnFamily, bytes) / count;
+    }
+    double covariance = 0;
+    double variance = 0;
+    for (final Sample sample : this.samples) {
+      final double time = sample.time - meanTime;
+      covariance += time * (this.getValue(sample, columnFamily, bytes) - meanValue);
+      variance += time * time;
+    }
+    return variance == 0 ? 0 : covariance / variance;
+  }
+
+  /**
+   * @return compaction backlog bytes if bytes is true, storeFiles count otherwise
+   */
+  private long getValue(final Sample sample, final int columnFamily, final boolean bytes) {
+    return bytes ? sample.compactingBytes[columnFamily] : sample.storeFilesCounts[columnFamily];
+  }
+
+  /**
+   * checks if amplification of each store over window is close to one over previous window
+   * @param first - the first sample of window
+   * @param last - the last sample of window
+   */
+  private void checkConvergence(final Sample first, final Sample last) {
+    final int storesCount = last.flushWrites.length;
+    final double[] writeAmplification = new double[storesCount];
+    final double[] readAmplification = new double[storesCount];
+    for (int i = 0; i < storesCount; i++) {
+      writeAmplification[i] = (double) (last.compactionWrites[i] - first.compactionWrites[i])
+          / (last.flushWrites[i] - first.flushWrites[i]);
+      // each sample but the first one is the end of gap between samples of window
+      for (int j = 1; j < this.samples.size(); j++) {
+        readAmplification[i] += this.samples.get(j).readAmplification[i]
+            / (this.samples.size() - 1);
+      }
+    }
+
+    if (this.previousWriteAmplification != null
+        && this.isClose(writeAmplification, this.previousWriteAmplification)
+        && this.isClose(readAmplification, this.previousReadAmplification)) {
+      LOG.info("simulation converged at " + last.time + " ms");
+      this.stability = Stability.CONVERGED;
+    }
+    this.previousWriteAmplification = writeAmplification;
+    this.previousReadAmplification = readAmplification;
+  }
+
+  /**
+   * @return if each value differs from previous one by at most tolerance part, undefined values
+   *         are never close
+   */
+  private boolean isClose(final double[] values, final double[] previous) {
+    for (int i = 0; i < values.length; i++) {
+      if (!(Math.abs(values[i] - previous[i]) <= this.convergenceTolerance
+          * Math.abs(previous[i]))) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,75 @@
+package Model.Workloads;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import Model.Configuration;
+import Tools.RandomGenerator;
+
+/**
+ * BurstRate - batch bursts of ingest: during burst rate is multiplied by "Burst rate multiplier",
+ * between bursts multiplier is 1. Time from end of burst to start of next one is exponentially
+ * distributed with mean "Burst gap(ms)", so bursts come as Poisson process. Bursts are drawn lazily
+ * from own random stream as simulated time goes
+ * @author ibra
+ */
+public class BurstRate extends RateFunction {
+
+  private static final Log LOG = LogFactory.getLog(BurstRate.class.getName());
+
+  /**
+   * mean time(ms) between bursts
+   */
+  private final long gap;
+
+  /**
+   * length(ms) of burst
+   */
+  private final long duration;
+
+  /**
+   * rate multiplier during burst
+   */
+  private final double multiplier;
+
+  /**
+   * random stream of bursts
+   */
+  private final RandomGenerator randomGenerator;
+
+  /**
+   * simulated time(ms) when current or next burst starts
+   */
+  private long start;
+
+  /**
+   * @param configuration - general configuration of simulation
+   * @param randomGenerator - random stream of bursts
+   */
+  public BurstRate(final Configuration configuration, final RandomGenerator randomGenerator) {
+    this.gap = configuration.getBurstGap();
+    this.duration = configuration.getBurstDuration();
+    this.multiplier = configuration.getBurstMultiplier();
+    this.randomGenerator = randomGenerator;
+    if (this.duration <= 0 || this.multiplier < 0) {
+      throw new IllegalArgumentException("'Burst duration(ms)' must be positive and 'Burst rate"
+          + " multiplier' must not be negative");
+    }
+    this.start = this.getNextGap();
+  }
+
+  /**
+   * @return exponentially distributed time(ms) from end of burst to start of next one
+   */
+  private long getNextGap() {
+    return Math.round(-this.gap * Math.log(1 - this.randomGenerator.getRandomDouble(1)));
+  }
+
+  @Override
+  public double getMultiplier(final long time, final int columnFamily) {
+    while (time >= this.start + this.duration) {
+      this.start += this.duration + this.getNextGap();
+    }
+    return time >= this.start ? this.multiplier : 1;
+  }
+}
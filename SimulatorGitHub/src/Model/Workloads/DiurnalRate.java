@@ -0,0 +1,44 @@
+package Model.Workloads;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import Model.Configuration;
+
+/**
+ * DiurnalRate - daily cycle of ingest: multiplier is 1 + amplitude * cos(2 * pi * (time - peak) /
+ * day), so average rate over day is the same as without cycle
+ * @author ibra
+ */
+public class DiurnalRate extends RateFunction {
+
+  private static final Log LOG = LogFactory.getLog(DiurnalRate.class.getName());
+
+  /**
+   * relative amplitude of cycle, in [0, 1]
+   */
+  private final double amplitude;
+
+  /**
+   * time of day(ms) when rate is the highest
+   */
+  private final long peak;
+
+  /**
+   * @param configuration - general configuration of simulation
+   */
+  public DiurnalRate(final Configuration configuration) {
+    this.amplitude = configuration.getDiurnalAmplitude();
+    this.peak = configuration.getDiurnalPeak();
+    if (this.amplitude < 0 || this.amplitude > 1) {
+      throw new IllegalArgumentException("'Diurnal amplitude' must be in [0, 1]: "
+          + this.amplitude);
+    }
+  }
+
+  @Override
+  public double getMultiplier(final long time, final int columnFamily) {
+    return 1 + this.amplitude
+        * Math.cos(2 * Math.PI * (time - this.peak) / Configuration.MS_PER_DAY);
+  }
+}
@@ -0,0 +1,135 @@
+package Model.Workloads;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import Model.Configuration;
+
+/**
+ * FileRate - piecewise constant rate multipliers read from CSV file ("Rate file"), for example
+ * load profile measured on real cluster. Each line is "time(ms),multiplier" for all stores or
+ * "time(ms),multiplier of store 0,multiplier of store 1,..." with multiplier for each store.
+ * Multiplier of line holds from its time till time of the next line, before the first line
+ * multiplier of the first line is used. With "Rate file period(ms)" file is repeated
+ * @author ibra
+ */
+public class FileRate extends RateFunction {
+
+  private static final Log LOG = LogFactory.getLog(FileRate.class.getName());
+
+  /**
+   * time(ms) of each line, non-decreasing
+   */
+  private final long[] times;
+
+  /**
+   * multipliers of each line, one for all stores or one for each store
+   */
+  private final double[][] multipliers;
+
+  /**
+   * period(ms) of repeating, 0 if file is not repeated
+   */
+  private final long period;
+
+  /**
+   * @param configuration - general configuration of simulation
+   * @param storesCount - amount of stores
+   * @throws IllegalArgumentException if file can't be read or contains incorrect line
+   */
+  public FileRate(final Configuration configuration, final int storesCount) {
+    final String fileName = configuration.getRateFile();
+    this.period = configuration.getRateFilePeriod();
+
+    final List<Long> times = new ArrayList<Long>();
+    final List<double[]> multipliers = new ArrayList<double[]>();
+    try {
+      final BufferedReader reader = new BufferedReader(new FileReader(fileName));
+      try {
+        int lineNumber = 0;
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+          lineNumber++;
+          line = line.trim();
+          if (line.isEmpty() || line.startsWith("#")) {
+            continue;
+          }
+          final String[] fields = line.split("\\s*[,;\\t]\\s*");
+          if (fields.length != 2 && fields.length != storesCount + 1) {
+            throw new IllegalArgumentException(fileName + ":" + lineNumber
+                + ": expected time and 1 or " + storesCount + " multipliers");
+          }
+          final double[] values = new double[fields.length - 1];
+          try {
+            times.add(Long.parseLong(fields[0]));
+            for (int i = 0; i < values.length; i++) {
+              values[i] = Double.parseDouble(fields[i + 1]);
+            }
+          } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException(fileName + ":" + lineNumber + ": " + e.getMessage());
+          }
+          for (final double value : values) {
+            if (!(value >= 0) || Double.isInfinite(value)) {
+              throw new IllegalArgumentException(fileName + ":" + lineNumber
+                  + ": multipliers must be finite and not negative");
+            }
+          }
+          final int count = times.size();
+          if (count > 1 && times.get(count - 1) < times.get(count - 2)) {
+            throw new IllegalArgumentException(fileName + ":" + lineNumber
+                + ": lines must go in order of time");
+          }
+          multipliers.add(values);
+        }
+      } finally {
+        reader.close();
+      }
+    } catch (final IOException e) {
+      throw new IllegalArgumentException("can't read rate file '" + fileName + "': "
+          + e.getMessage());
+    }
+    if (times.isEmpty()) {
+      throw new IllegalArgumentException(fileName + ": rate file is empty");
+    }
+
+    this.times = new long[times.size()];
+    this.multipliers = multipliers.toArray(new double[multipliers.size()][]);
+    for (int i = 0; i < this.times.length; i++) {
+      this.times[i] = times.get(i);
+    }
+    LOG.info("rate file " + fileName + ": " + this.times.length + " lines");
+  }
+
+  @Override
+  public double getMultiplier(final long time, final int columnFamily) {
+    final long fileTime = this.period > 0 ? time % this.period : time;
+    int line = Arrays.binarySearch(this.times, fileTime);
+    if (line < 0) {
+      // before insertion point, so the last line with time less than fileTime
+      line = Math.max(0, -line - 2);
+    } else {
+      // the last of lines with the same time
+      while (line + 1 < this.times.length && this.times[line + 1] == fileTime) {
+        line++;
+      }
+    }
+    final double[] values = this.multipliers[line];
+    return values.length == 1 ? values[0] : values[columnFamily];
+  }
+
+  @Override
+  public boolean isPerStore() {
+    for (final double[] values : this.multipliers) {
+      if (values.length > 1) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,202 @@
+package Model.Workloads;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import Model.Configuration;
+
+/**
+ * FlushTrace - flushes of real HBase region server read from trace file ("Flush trace file"), for
+ * example parsed from its logs. Each line is "time(ms),store,flushed bytes", lines go in order of
+ * time. File is read one line ahead while simulation goes, so only the next flush is kept in
+ * memory. Times are shifted so that the first flush is at simulated time 0
+ * @author ibra
+ */
+public class FlushTrace {
+
+  private static final Log LOG = LogFactory.getLog(FlushTrace.class.getName());
+
+  /**
+   * name of trace file
+   */
+  private final String fileName;
+
+  /**
+   * reader of trace file, null when file is read till end
+   */
+  private BufferedReader reader;
+
+  /**
+   * amount of stores
+   */
+  private final int storesCount;
+
+  /**
+   * number of the last read line
+   */
+  private long lineNumber;
+
+  /**
+   * time(ms) of the first flush in file, subtracted from times of all flushes
+   */
+  private long startTime;
+
+  /**
+   * simulated time(ms) of current flush
+   */
+  private long time;
+
+  /**
+   * column family of store of current flush
+   */
+  private int columnFamily;
+
+  /**
+   * flushed bytes of current flush
+   */
+  private long bytesSize;
+
+  /**
+   * amount of flushes read so far
+   */
+  private long flushesCount;
+
+  /**
+   * opens trace file and reads the first flush
+   * @param configuration - general configuration of simulation
+   * @throws IllegalArgumentException if file can't be read, has no flushes or its first flush is
+   *           incorrect
+   */
+  public FlushTrace(final Configuration configuration) {
+    this.fileName = configuration.getFlushTraceFile();
+    this.storesCount = (int) configuration.getCompactionAlgosCount();
+    this.lineNumber = 0;
+    this.flushesCount = 0;
+    try {
+      this.reader = new BufferedReader(new FileReader(this.fileName));
+    } catch (final IOException e) {
+      throw new IllegalArgumentException("can't read flush trace file '" + this.fileName + "': "
+          + e.getMessage());
+    }
+    final boolean empty;
+    try {
+      empty = !this.next();
+    } catch (final IllegalArgumentException e) {
+      this.close();
+      throw e;
+    }
+    if (empty) {
+      throw new IllegalArgumentException(this.fileName + ": flush trace file is empty");
+    }
+  }
+
+  /**
+   * reads the next flush
+   * @return false if there are no more flushes, file is closed then
+   * @throws IllegalArgumentException if file can't be read or contains incorrect line
+   */
+  public boolean next() {
+    if (this.reader == null) {
+      return false;
+    }
+    try {
+      for (String line = this.reader.readLine(); line != null; line = this.reader.readLine()) {
+        this.lineNumber++;
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        this.parse(line);
+        return true;
+      }
+    } catch (final IOException e) {
+      throw new IllegalArgumentException("can't read flush trace file '" + this.fileName + "': "
+          + e.getMessage());
+    }
+    LOG.info("flush trace " + this.fileName + ": " + this.flushesCount + " flushes");
+    this.close();
+    return false;
+  }
+
+  /**
+   * parses line of trace file into current flush
+   * @param line - trimmed line that is not empty or comment
+   * @throws IllegalArgumentException if line is incorrect
+   */
+  private void parse(final String line) {
+    final String[] fields = line.split("\\s*[,;\\t]\\s*");
+    if (fields.length != 3) {
+      throw new IllegalArgumentException(this.fileName + ":" + this.lineNumber
+          + ": expected time, store and flushed bytes");
+    }
+    final long time;
+    final int columnFamily;
+    final long bytesSize;
+    try {
+      time = Long.parseLong(fields[0]);
+      columnFamily = Integer.parseInt(fields[1]);
+      bytesSize = Long.parseLong(fields[2]);
+    } catch (final NumberFormatException e) {
+      throw new IllegalArgumentException(this.fileName + ":" + this.lineNumber + ": "
+          + e.getMessage());
+    }
+    if (this.flushesCount == 0) {
+      this.startTime = time;
+    } else if (time - this.startTime < this.time) {
+      throw new IllegalArgumentException(this.fileName + ":" + this.lineNumber
+          + ": lines must go in order of time");
+    }
+    if (columnFamily < 0 || columnFamily >= this.storesCount) {
+      throw new IllegalArgumentException(this.fileName + ":" + this.lineNumber + ": there is no "
+          + "store " + columnFamily + ", scenario has " + this.storesCount + " stores");
+    }
+    if (bytesSize <= 0) {
+      throw new IllegalArgumentException(this.fileName + ":" + this.lineNumber
+          + ": flushed bytes must be positive");
+    }
+    this.time = time - this.startTime;
+    this.columnFamily = columnFamily;
+    this.bytesSize = bytesSize;
+    this.flushesCount++;
+  }
+
+  /**
+   * @return simulated time(ms) of current flush
+   */
+  public long getTime() {
+    return this.time;
+  }
+
+  /**
+   * @return column family of store of current flush
+   */
+  public int getColumnFamily() {
+    return this.columnFamily;
+  }
+
+  /**
+   * @return flushed bytes of current flush
+   */
+  public long getBytesSize() {
+    return this.bytesSize;
+  }
+
+  /**
+   * closes trace file, it may be closed before it is read till end when simulation ends
+   */
+  public void close() {
+    if (this.reader == null) {
+      return;
+    }
+    try {
+      this.reader.close();
+    } catch (final IOException e) {
+      LOG.error("can't close flush trace file '" + this.fileName + "': " + e.getMessage());
+    }
+    this.reader = null;
+  }
+}
@@ -0,0 +1,30 @@
+package Model.Workloads;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * RateFunction - shape of ingest rate over simulated time: multiplier of rate set by "Gap between
+ * flushes(ms)". Workload multiplies all rate functions that are turned on in Configuration, so new
+ * load shape is added by inheriting from this class and creating it in Workload.
+ * Multipliers are asked for in order of simulated time
+ * @author ibra
+ */
+public abstract class RateFunction {
+
+  private static final Log LOG = LogFactory.getLog(RateFunction.class.getName());
+
+  /**
+   * @param time - simulated time(ms), not less than time of previous call
+   * @param columnFamily - column family of store
+   * @return multiplier of ingest rate of store at time, not negative
+   */
+  public abstract double getMultiplier(final long time, final int columnFamily);
+
+  /**
+   * @return if multiplier may be different for different stores
+   */
+  public boolean isPerStore() {
+    return false;
+  }
+}
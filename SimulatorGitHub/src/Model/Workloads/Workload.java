@@ -0,0 +1,255 @@
+package Model.Workloads;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import Model.Configuration;
+import Tools.RandomGenerator;
+
+/**
+ * Workload - decides when puts come to region, to which store and how large they are.
+ *
+ * Base ingest rate of each store gives flush every "Gap between flushes(ms)". It is multiplied by
+ * rate functions that are turned on in Configuration - daily cycle (DiurnalRate), Poisson bursts
+ * (BurstRate), profile from CSV file (FileRate) - and by "Column family weights" of store, so
+ * hot stores get larger part of puts while total rate stays the same. Each put goes to store
+ * chosen with probability proportional to its rate. With "Identical workload" each put goes to all
+ * stores, so rate of store 0 is used and weights are ignored.
+ *
+ * Time to next put is inverse of rate at current time, fractional part is carried to next put so
+ * that average rate is exact. When rate is so low that put doesn't come within IDLE_GAP, generator
+ * wakes up after IDLE_GAP without put to see new rate, so rate going up from zero is not missed.
+ *
+ * KeyValue sizes are jittered by "KeyValue size jitter" around "KeyValue size(bytes)" for each pack
+ * @author ibra
+ */
+public class Workload {
+
+  private static final Log LOG = LogFactory.getLog(Workload.class.getName());
+
+  /**
+   * the longest time(ms) generator waits without looking at rate again
+   */
+  private static final long IDLE_GAP = 60000;
+
+  /**
+   * random stream of workload
+   */
+  private final RandomGenerator randomGenerator;
+
+  /**
+   * does each put go to all stores
+   */
+  private final boolean identical;
+
+  /**
+   * puts per ms each store gets at multiplier 1
+   */
+  private final double storePutRate;
+
+  /**
+   * weight of each store, their sum is amount of stores
+   */
+  private final double[] weights;
+
+  /**
+   * rate of each store at time of the last choice of store
+   */
+  private final double[] storeRates;
+
+  /**
+   * rate functions that are turned on
+   */
+  private final List<RateFunction> rateFunctions = new ArrayList<RateFunction>();
+
+  /**
+   * are stores chosen not uniformly
+   */
+  private final boolean skewed;
+
+  /**
+   * part of put that was accumulated and not put yet, carried between gaps
+   */
+  private double credit;
+
+  /**
+   * should generator do put when it wakes up next time
+   */
+  private boolean putDue;
+
+  /**
+   * @param configuration - general configuration of simulation
+   * @param randomGenerator - random stream of workload, rate functions split their streams from it
+   * @throws IllegalArgumentException if workload configuration is incorrect
+   */
+  public Workload(final Configuration configuration, final RandomGenerator randomGenerator) {
+    final int storesCount = (int) configuration.getCompactionAlgosCount();
+    this.randomGenerator = randomGenerator;
+    this.identical = configuration.isIdenticalWorkload();
+    this.storePutRate = (double) configuration.getMemstoreBytesSize()
+        / (configuration.getFlushGap() * configuration.getKvsPerPut() * configuration
+            .getKeyValueByteSize());
+    this.weights = Workload.parseWeights(configuration.getColumnFamilyWeights(), storesCount);
+    this.storeRates = new double[storesCount];
+
+    if (configuration.getDiurnalAmplitude() != 0) {
+      this.rateFunctions.add(new DiurnalRate(configuration));
+    }
+    if (configuration.getBurstGap() > 0) {
+      this.rateFunctions.add(new BurstRate(configuration, randomGenerator.split()));
+    }
+    if (!configuration.getRateFile().isEmpty()) {
+      this.rateFunctions.add(new FileRate(configuration, storesCount));
+    }
+
+    boolean skewed = false;
+    for (final double weight : this.weights) {
+      skewed |= weight != 1;
+    }
+    for (final RateFunction rateFunction : this.rateFunctions) {
+      skewed |= rateFunction.isPerStore();
+    }
+    this.skewed = skewed && !this.identical;
+    this.credit = 0;
+    this.putDue = true;
+  }
+
+  /**
+   * @param weights - comma separated weights, empty for equal weights
+   * @param storesCount - amount of stores
+   * @return weight of each store, scaled so that their sum is storesCount
+   */
+  private static double[] parseWeights(final String weights, final int storesCount) {
+    final double[] res = new double[storesCount];
+    if (weights.trim().isEmpty()) {
+      for (int i = 0; i < storesCount; i++) {
+        res[i] = 1;
+      }
+      return res;
+    }
+
+    final String[] fields = weights.split(",");
+    if (fields.length != storesCount) {
+      throw new IllegalArgumentException("'Column family weights' must have " + storesCount
+          + " values: " + weights);
+    }
+    double sum = 0;
+    for (int i = 0; i < storesCount; i++) {
+      res[i] = Double.parseDouble(fields[i].trim());
+      if (res[i] < 0) {
+        throw new IllegalArgumentException("'Column family weights' must not be negative: "
+            + weights);
+      }
+      sum += res[i];
+    }
+    if (sum <= 0) {
+      throw new IllegalArgumentException("'Column family weights' must not be all zero");
+    }
+    for (int i = 0; i < storesCount; i++) {
+      res[i] *= storesCount / sum;
+    }
+    return res;
+  }
+
+  /**
+   * @param time - simulated time(ms)
+   * @param columnFamily - column family of store
+   * @return product of rate functions and weight of store at time
+   */
+  private double getMultiplier(final long time, final int columnFamily) {
+    double res = this.identical ? 1 : this.weights[columnFamily];
+    for (final RateFunction rateFunction : this.rateFunctions) {
+      res *= rateFunction.getMultiplier(time, columnFamily);
+    }
+    return res;
+  }
+
+  /**
+   * @param time - simulated time(ms)
+   * @return puts per ms region gets at time
+   */
+  private double getPutRate(final long time) {
+    if (this.identical) {
+      return this.storePutRate * this.getMultiplier(time, 0);
+    }
+    double res = 0;
+    for (int i = 0; i < this.storeRates.length; i++) {
+      res += this.getMultiplier(time, i);
+    }
+    return this.storePutRate * res;
+  }
+
+  /**
+   * @param from - simulated time(ms), not less than to of previous call, because rate functions
+   *          move only forward in time
+   * @param to - simulated time(ms)
+   * @return expected amount of puts region is given in [from, to) without back-pressure, rate is
+   *         sampled every IDLE_GAP
+   */
+  public double getOfferedPuts(final long from, final long to) {
+    double res = 0;
+    for (long time = from; time < to; time += Workload.IDLE_GAP) {
+      res += this.getPutRate(time) * (Math.min(to, time + Workload.IDLE_GAP) - time);
+    }
+    return res;
+  }
+
+  /**
+   * computes time till generator wakes up next time and whether it should do put then
+   * @param time - current simulated time(ms)
+   * @return time(ms) till generator wakes up
+   */
+  public long getNextGap(final long time) {
+    final double rate = this.getPutRate(time);
+    if (this.credit + rate * Workload.IDLE_GAP >= 1) {
+      final long gap = (long) ((1 - this.credit) / rate);
+      this.credit += rate * gap - 1;
+      this.putDue = true;
+      return gap;
+    }
+    this.credit += rate * Workload.IDLE_GAP;
+    this.putDue = false;
+    return Workload.IDLE_GAP;
+  }
+
+  /**
+   * @return should generator do put now
+   */
+  public boolean isPutDue() {
+    return this.putDue;
+  }
+
+  /**
+   * @param time - current simulated time(ms)
+   * @return column family of store next put goes to
+   */
+  public int getNextColumnFamily(final long time) {
+    if (!this.skewed) {
+      return this.randomGenerator.getNextColumnFamily();
+    }
+    double sum = 0;
+    for (int i = 0; i < this.storeRates.length; i++) {
+      this.storeRates[i] = this.getMultiplier(time, i);
+      sum += this.storeRates[i];
+    }
+    double point = this.randomGenerator.getRandomDouble(sum);
+    for (int i = 0; i < this.storeRates.length; i++) {
+      point -= this.storeRates[i];
+      if (point < 0) {
+        return i;
+      }
+    }
+    // all stores have zero rate now, put was due by rate at previous gap
+    return this.randomGenerator.getNextColumnFamily();
+  }
+
+  /**
+   * @return size of next KeyValuePack before compression
+   */
+  public long getKeyValuePackBytesSize() {
+    return this.randomGenerator.getKeyValuePackBytesSize();
+  }
+}
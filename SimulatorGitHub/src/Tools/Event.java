@@ -0,0 +1,76 @@
+package Tools;
+
+/**
+ * Event - something that happens at some moment of simulated time.
+ * Events are executed by EventQueue in order of their time, events with equal time are executed
+ * in order they were scheduled, so every simulation run is fully deterministic
+ * 
+ * Event object can be scheduled again after it was executed (periodic events reuse themselves).
+ * Scheduled event can be cancelled - it stays in EventQueue, but is skipped instead of executed
+ * @author ibra
+ */
+public abstract class Event implements Comparable<Event> {
+
+  /**
+   * simulated time(ms) when this event happens
+   */
+  private long time;
+
+  /**
+   * sequence number of this event in EventQueue - used to order events with equal time
+   */
+  private long sequence;
+
+  /**
+   * is this event cancelled after it was scheduled
+   */
+  private boolean cancelled;
+
+  /**
+   * does whatever this event is about
+   */
+  public abstract void execute();
+
+  /**
+   * @return simulated time(ms) when this event happens
+   */
+  public long getTime() {
+    return this.time;
+  }
+
+  /**
+   * called by EventQueue when event is scheduled
+   * @param time - simulated time(ms) when this event happens
+   * @param sequence - sequence number of this event in EventQueue
+   */
+  void schedule(final long time, final long sequence) {
+    this.time = time;
+    this.sequence = sequence;
+    this.cancelled = false;
+  }
+
+  /**
+   * called by EventQueue when event is cancelled
+   */
+  void cancel() {
+    this.cancelled = true;
+  }
+
+  /**
+   * @return if this event is cancelled after it was scheduled
+   */
+  boolean isCancelled() {
+    return this.cancelled;
+  }
+
+  @Override
+  public int compareTo(final Event other) {
+    if (this.time != other.time) {
+      return this.time < other.time ? -1 : 1;
+    }
+    if (this.sequence != other.sequence) {
+      return this.sequence < other.sequence ? -1 : 1;
+    }
+    return 0;
+  }
+}
@@ -0,0 +1,121 @@
+package Tools;
+
+import java.util.PriorityQueue;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * EventQueue - core of discrete-event simulation: virtual clock plus priority queue of timed events.
+ * 
+ * Nobody sleeps here: when current event is executed, virtual clock jumps straight to the time of
+ * the next event, so simulation goes as fast as CPU allows and doesn't depend on machine load
+ * @author ibra
+ */
+public class EventQueue {
+
+  private static final Log LOG = LogFactory.getLog(EventQueue.class.getName());
+
+  /**
+   * scheduled events ordered by time (and by scheduling order for equal times)
+   */
+  private final PriorityQueue<Event> queue;
+
+  /**
+   * current simulated time(ms) - time of the last executed event
+   */
+  private long currentTime;
+
+  /**
+   * amount of events scheduled so far - used to order events with equal time
+   */
+  private long sequence;
+
+  /**
+   * creates and initializes object
+   */
+  public EventQueue() {
+    this.queue = new PriorityQueue<Event>();
+    this.currentTime = 0;
+    this.sequence = 0;
+  }
+
+  /**
+   * @return current simulated time(ms)
+   */
+  public long getCurrentTime() {
+    return this.currentTime;
+  }
+
+  /**
+   * schedules event at some moment of simulated time
+   * @param time - simulated time(ms) when event should happen. Can't be in the past
+   * @param event - event to be scheduled
+   */
+  public void schedule(final long time, final Event event) {
+    if (time < this.currentTime) {
+      throw new IllegalArgumentException("can't schedule event in the past: " + time + " < "
+          + this.currentTime);
+    }
+    event.schedule(time, this.sequence++);
+    this.queue.add(event);
+  }
+
+  /**
+   * schedules event after delay from current simulated time
+   * @param delay - delay(ms) from current time
+   * @param event - event to be scheduled
+   */
+  public void scheduleAfter(final long delay, final Event event) {
+    this.schedule(this.currentTime + delay, event);
+  }
+
+  /**
+   * cancels scheduled event: it won't be executed. Event is removed lazily, when it reaches head
+   * of the queue, so cancel takes O(1) - and cancelled event object must not be scheduled again
+   * @param event - scheduled event
+   */
+  public void cancel(final Event event) {
+    event.cancel();
+  }
+
+  /**
+   * removes cancelled events from head of the queue
+   */
+  private void skipCancelled() {
+    while (!this.queue.isEmpty() && this.queue.peek().isCancelled()) {
+      this.queue.poll();
+    }
+  }
+
+  /**
+   * @return if there are no scheduled events
+   */
+  public boolean isEmpty() {
+    this.skipCancelled();
+    return this.queue.isEmpty();
+  }
+
+  /**
+   * @return time of the next scheduled event, or current time if there are no events
+   */
+  public long getNextEventTime() {
+    this.skipCancelled();
+    return this.queue.isEmpty() ? this.currentTime : this.queue.peek().getTime();
+  }
+
+  /**
+   * moves virtual clock to the next event and executes it
+   * @return false if there were no events to execute
+   */
+  public boolean executeNext() {
+    this.skipCancelled();
+    final Event event = this.queue.poll();
+    if (event == null) {
+      return false;
+    }
+    this.currentTime = event.getTime();
+    event.execute();
+    return true;
+  }
+}
@@ -1,5 +1,8 @@
 package Tools;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -7,16 +10,17 @@ import Model.Configuration;
 
 /**
  * HDFS class helps to emulate delay of read/write from/to HDFS
- * This class is enum-based Singleton
  * 
- * this class allows parallel threads to read from HDFS in this way:
+ * this class allows several streams to read from HDFS in this way:
  * in any case overall read/write speed is bounded with
  * HDFS_READ_BYTES_PER_SECOND  - from Configuration
  * HDFS_WRITE_BYTES_PER_SECOND  - from Configuration
  * 
- * so when some thread tries to read file we read it here by 
- * blocks, so that HDFS throughput can be divided between several 
- * threads and one thread won't block others from accessing HDFS
+ * read and write are separate channels. Bandwidth of channel is shared between all transfers that
+ * go through it at the same moment in proportion to their weights (weighted fair sharing), so small
+ * flush is not stuck behind large compaction - it just gets its share of bandwidth. Weight of
+ * transfer is given by IOPriority of its stream. Progress of transfers is counted in fractional
+ * bytes, so rounding doesn't make small transfers free
  * 
  * @author ibra
  *
@@ -26,71 +30,267 @@ public class HDFS {
   private static final Log LOG = LogFactory.getLog(HDFS.class.getName());
 
   /**
-   * read/write block size
+   * event queue of simulation - to know current simulated time and to schedule finished transfers
    */
-  static final long BLOCK_SIZE = 128L * 1024L * 1024L * 1024L;
+  private final EventQueue eventQueue;
 
   /**
-   * HDFSWaiter to wait for HDFS read
+   * channel to read from HDFS
    */
-  private HDFSWaiter reader;
+  private final HDFSChannel reader;
 
   /**
-   * HDFSWaiter to wait for HDFS write
+   * channel to write to HDFS
    */
-  private HDFSWaiter writer;
+  private final HDFSChannel writer;
+
+  /**
+   * weight of each IOPriority class, IOPriority.ordinal() is used as index
+   */
+  private final double[] weights;
+
+  /**
+   * statistics of streams of simulation
+   */
+  private final IOStatistics statistics;
 
   /**
    * creates and initializes object
+   * @param eventQueue - event queue of simulation
+   * @param configuration - configuration of simulation
+   * @param statistics - statistics of streams of simulation
+   * @throws IllegalArgumentException if some IO weight is not positive
    */
-  public HDFS() {
-    this.reader = new HDFSWaiter();
-    this.writer = new HDFSWaiter();
+  public HDFS(final EventQueue eventQueue, final Configuration configuration,
+      final IOStatistics statistics) {
+    this.eventQueue = eventQueue;
+    this.reader = new HDFSChannel(eventQueue, configuration.getHDFSReadbytesPerSecond());
+    this.writer = new HDFSChannel(eventQueue, configuration.getHDFSWriteBytesPerSecond());
+    this.statistics = statistics;
+    this.weights = new double[IOPriority.values().length];
+    this.weights[IOPriority.FLUSH.ordinal()] = configuration.getFlushIOWeight();
+    this.weights[IOPriority.SMALL_COMPACTION.ordinal()] = configuration.getSmallCompactionIOWeight();
+    this.weights[IOPriority.LARGE_COMPACTION.ordinal()] = configuration.getLargeCompactionIOWeight();
+    this.weights[IOPriority.MAJOR_COMPACTION.ordinal()] = configuration.getMajorCompactionIOWeight();
+    for (final IOPriority priority : IOPriority.values()) {
+      final double weight = this.weights[priority.ordinal()];
+      if (!(weight > 0) || Double.isInfinite(weight)) {
+        throw new IllegalArgumentException("IO weight of " + priority + " must be positive: "
+            + weight);
+      }
+    }
   }
 
   /**
-   * calls synchronizedSleep - read BLOCK_SIZE bytes synchronously
+   * @return event queue of simulation
    */
-  void readRequest() {
-    this.reader.synchronizedSleep(this.getReadFromHDFSDelay(BLOCK_SIZE));
+  EventQueue getEventQueue() {
+    return this.eventQueue;
   }
 
   /**
-   * calls synchronizedSleep - write BLOCK_SIZE bytes synchronously
+   * @return statistics of streams of simulation
    */
-  void writeRequest() {
-    this.writer.synchronizedSleep(this.getWriteToHDFSDelay(BLOCK_SIZE));
+  IOStatistics getStatistics() {
+    return this.statistics;
   }
 
   /**
-   * @param bytes amount of bytes to write to HDFS
-   * @return amount of milliseconds that it will take to write bytes to HDFS
+   * @param priority - class of stream
+   * @return share of bandwidth stream of this class gets relative to other streams
    */
-  long getWriteToHDFSDelay(final long bytes) {
-    return bytes
-        * 1000L
-        / (Configuration.INSTANCE.getHDFSWriteBytesPerSecond() * Configuration.INSTANCE
-            .getxFaster());
+  double getWeight(final IOPriority priority) {
+    return this.weights[priority.ordinal()];
   }
 
   /**
-   * @param bytes amount of bytes to read to HDFS
-   * @return amount of milliseconds that it will take to read bytes to HDFS
+   * @param bytesToRead - bytes to read
+   * @param bytesToWrite - bytes to write
+   * @return time(ms) it would take to read and then write bytes with whole bandwidth of HDFS
    */
-  long getReadFromHDFSDelay(final long bytes) {
-    return bytes
-        * 1000L
-        / (Configuration.INSTANCE.getHDFSReadbytesPerSecond() * Configuration.INSTANCE.getxFaster());
+  double getIdealTime(final long bytesToRead, final long bytesToWrite) {
+    return this.reader.getIdealTime(bytesToRead) + this.writer.getIdealTime(bytesToWrite);
+  }
+
+  /**
+   * read bytes from HDFS
+   * @param bytes - amount of bytes to read
+   * @param weight - share of bandwidth this read gets relative to other transfers
+   * @param onFinish - event to be executed when read is finished
+   */
+  void read(final long bytes, final double weight, final Event onFinish) {
+    this.reader.transfer(bytes, weight, onFinish);
+  }
+
+  /**
+   * write bytes to HDFS
+   * @param bytes - amount of bytes to write
+   * @param weight - share of bandwidth this write gets relative to other transfers
+   * @param onFinish - event to be executed when write is finished
+   */
+  void write(final long bytes, final double weight, final Event onFinish) {
+    this.writer.transfer(bytes, weight, onFinish);
   }
 }
 
-class HDFSWaiter {
+/**
+ * HDFSChannel - read or write channel of HDFS with bounded bandwidth, shared by transfers in
+ * proportion to their weights. Channel keeps one event scheduled - at the moment when the nearest
+ * transfer finishes; when transfers start or finish, progress of all transfers is counted and
+ * that event is rescheduled
+ * @author ibra
+ */
+class HDFSChannel {
+
+  /**
+   * transfers with less bytes remaining are considered finished (floating point error)
+   */
+  private static final double EPSILON_BYTES = 1e-3;
+
+  /**
+   * event queue of simulation
+   */
+  private final EventQueue eventQueue;
+
+  /**
+   * bandwidth of channel in bytes per millisecond
+   */
+  private final double bytesPerMs;
+
+  /**
+   * transfers that go through channel right now
+   */
+  private final List<Transfer> transfers = new ArrayList<Transfer>();
+
+  /**
+   * sum of weights of transfers
+   */
+  private double totalWeight = 0;
+
   /**
-   * SYNCHRONIZED METHOD only one thread at a time can be inside this method. this fact makes HDFS
-   * throughput bounded
-   * @param time time to sleep
+   * simulated time(ms) till what progress of transfers is counted
    */
-  synchronized void synchronizedSleep(final long ms) {
-    Helper.sleepTo(System.currentTimeMillis() + ms);
+  private long updateTime = 0;
+
+  /**
+   * scheduled event of the nearest transfer finish, null if channel is idle
+   */
+  private Event nextFinish = null;
+
+  /**
+   * @param eventQueue - event queue of simulation
+   * @param bytesPerSecond - bandwidth of channel
+   */
+  HDFSChannel(final EventQueue eventQueue, final long bytesPerSecond) {
+    this.eventQueue = eventQueue;
+    this.bytesPerMs = bytesPerSecond / 1000.0;
   }
-}
\ No newline at end of file
+
+  /**
+   * @param bytes - amount of bytes
+   * @return time(ms) it would take to transfer bytes with whole bandwidth of channel
+   */
+  double getIdealTime(final long bytes) {
+    return bytes / this.bytesPerMs;
+  }
+
+  /**
+   * starts transfer through channel
+   * @param bytes - amount of bytes to transfer
+   * @param weight - share of bandwidth this transfer gets relative to other transfers
+   * @param onFinish - event to be executed when transfer is finished
+   */
+  void transfer(final long bytes, final double weight, final Event onFinish) {
+    if (bytes <= 0) {
+      this.eventQueue.scheduleAfter(0, onFinish);
+      return;
+    }
+    this.update();
+    this.transfers.add(new Transfer(bytes, weight, onFinish));
+    this.totalWeight += weight;
+    this.rescheduleNextFinish();
+  }
+
+  /**
+   * counts progress of all transfers from updateTime till current time and finishes completed ones
+   */
+  private void update() {
+    final long now = this.eventQueue.getCurrentTime();
+    final double bytesPerWeight = (now - this.updateTime) * this.bytesPerMs / this.totalWeight;
+    this.updateTime = now;
+    if (this.transfers.isEmpty() || bytesPerWeight == 0) {
+      return;
+    }
+
+    for (int i = 0; i < this.transfers.size(); i++) {
+      final Transfer transfer = this.transfers.get(i);
+      transfer.remainingBytes -= bytesPerWeight * transfer.weight;
+      if (transfer.remainingBytes <= HDFSChannel.EPSILON_BYTES) {
+        this.eventQueue.scheduleAfter(0, transfer.onFinish);
+        this.totalWeight -= transfer.weight;
+        // order of transfers doesn't matter, so last one takes place of finished one
+        this.transfers.set(i, this.transfers.get(this.transfers.size() - 1));
+        this.transfers.remove(this.transfers.size() - 1);
+        i--;
+      }
+    }
+    if (this.transfers.isEmpty()) {
+      this.totalWeight = 0;
+    }
+  }
+
+  /**
+   * schedules event at the moment when the nearest transfer finishes with current shares
+   */
+  private void rescheduleNextFinish() {
+    if (this.nextFinish != null) {
+      this.eventQueue.cancel(this.nextFinish);
+      this.nextFinish = null;
+    }
+    if (this.transfers.isEmpty()) {
+      return;
+    }
+
+    double minTime = Double.MAX_VALUE;
+    for (final Transfer transfer : this.transfers) {
+      minTime = Math.min(minTime, transfer.remainingBytes * this.totalWeight
+          / (transfer.weight * this.bytesPerMs));
+    }
+    // clock counts whole milliseconds, so transfer is finished at the first moment it is done
+    this.nextFinish = new Event() {
+      @Override
+      public void execute() {
+        HDFSChannel.this.nextFinish = null;
+        HDFSChannel.this.update();
+        HDFSChannel.this.rescheduleNextFinish();
+      }
+    };
+    this.eventQueue.scheduleAfter(Math.max(1, (long) Math.ceil(minTime)), this.nextFinish);
+  }
+
+  /**
+   * transfer through channel
+   */
+  private static class Transfer {
+    /**
+     * bytes left to transfer
+     */
+    private double remainingBytes;
+
+    /**
+     * share of bandwidth relative to other transfers
+     */
+    private final double weight;
+
+    /**
+     * event to be executed when transfer is finished
+     */
+    private final Event onFinish;
+
+    private Transfer(final long bytes, final double weight, final Event onFinish) {
+      this.remainingBytes = bytes;
+      this.weight = weight;
+      this.onFinish = onFinish;
+    }
+  }
+}
@@ -4,8 +4,13 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 /**
- * HDFSStream class - class to read/write data from HDFS within one thread.
- * makes easier to access to HDFS from parallel threads and to read/write with some bounded rate.
+ * HDFSStream class - class to read/write data from HDFS during one operation (flush or compaction).
+ * makes easier to access to HDFS from several operations and to read/write with some bounded rate.
+ * 
+ * operation calls read/write as it goes through data, and when it is done calls submit: all
+ * requested bytes are read and then written and event is scheduled when HDFS is done with them.
+ * Stream gets share of HDFS bandwidth by weight of its IOPriority class and its bandwidth and
+ * queueing delay are added to IOStatistics when it is finished
  * @author ibra
  *
  */
@@ -19,24 +24,37 @@ public class HDFSStream {
   private final HDFS hdfs;
 
   /**
-   * cached bytes to read.
-   * So sometimes we need to read/write small files, so when we need to 
-   * do that, actually we need to do sleep for nanoseconds, which
-   * is very inaccurate, so that is what we do:
-   * when some thread wants to read some amount of bytes we add it to cachedBytesToRead,
-   * and when cachedBytesToRead reaches HDFS.BLOCK_SIZE (it takes about 30ms to read/write it)
-   * we do actually wait reading/writing whole block, and not waiting when cachedBytesToRead 
-   * is smaller that HDFS.BLOCK_SIZE
+   * class of stream - flush or compaction
    */
-  private long cachedBytesToRead;
+  private final IOPriority priority;
+
+  /**
+   * columnFamily of store stream belongs to - for attribution of IO when stores share HDFS
+   */
+  private final int columnFamily;
+
+  /**
+   * bytes requested to read since last submit
+   */
+  private long bytesToRead;
+
+  /**
+   * bytes requested to write since last submit
+   */
+  private long bytesToWrite;
 
   /**
    * creates and initializes object
    * @param hdfs - HDFS object to read/write from HDFS
+   * @param priority - class of stream - flush or compaction
+   * @param columnFamily - columnFamily of store stream belongs to
    */
-  public HDFSStream(final HDFS hdfs) {
-    this.cachedBytesToRead = 0;
+  public HDFSStream(final HDFS hdfs, final IOPriority priority, final int columnFamily) {
+    this.bytesToRead = 0;
+    this.bytesToWrite = 0;
     this.hdfs = hdfs;
+    this.priority = priority;
+    this.columnFamily = columnFamily;
   }
 
   /**
@@ -44,11 +62,7 @@ public class HDFSStream {
    * @param bytes - amount of bytes to read 
    */
   public void read(final long bytes) {
-    this.cachedBytesToRead += bytes;
-    while (this.cachedBytesToRead >= HDFS.BLOCK_SIZE) {
-      this.cachedBytesToRead -= HDFS.BLOCK_SIZE;
-      this.hdfs.readRequest();
-    }
+    this.bytesToRead += bytes;
   }
 
   /**
@@ -56,10 +70,38 @@ public class HDFSStream {
    * @param bytes - amount of bytes to write
    */
   public void write(final long bytes) {
-    this.cachedBytesToRead += bytes;
-    while (this.cachedBytesToRead >= HDFS.BLOCK_SIZE) {
-      this.cachedBytesToRead -= HDFS.BLOCK_SIZE;
-      this.hdfs.writeRequest();
-    }
+    this.bytesToWrite += bytes;
+  }
+
+  /**
+   * sends all requested reads and then all requested writes to HDFS
+   * @param onFinish - event to be executed when HDFS is done with them
+   */
+  public void submit(final Event onFinish) {
+    final HDFS hdfs = this.hdfs;
+    final IOPriority priority = this.priority;
+    final int columnFamily = this.columnFamily;
+    final double weight = hdfs.getWeight(priority);
+    final long bytesToWrite = this.bytesToWrite;
+    final long bytes = this.bytesToRead + bytesToWrite;
+    final double idealTime = hdfs.getIdealTime(this.bytesToRead, bytesToWrite);
+    final long startTime = hdfs.getEventQueue().getCurrentTime();
+
+    final Event onWritten = new Event() {
+      @Override
+      public void execute() {
+        hdfs.getStatistics().add(priority, columnFamily, bytes,
+          hdfs.getEventQueue().getCurrentTime() - startTime, idealTime);
+        onFinish.execute();
+      }
+    };
+    hdfs.read(this.bytesToRead, weight, new Event() {
+      @Override
+      public void execute() {
+        hdfs.write(bytesToWrite, weight, onWritten);
+      }
+    });
+    this.bytesToRead = 0;
+    this.bytesToWrite = 0;
   }
 }
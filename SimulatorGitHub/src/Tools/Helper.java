@@ -3,10 +3,8 @@ package Tools;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import Model.Configuration;
-
 /**
- * Helper class - helps to simulate time delays
+ * Helper class - helps to pace simulation to real time
  * @author ibra
  */
 public class Helper {
@@ -25,13 +23,6 @@ public class Helper {
     }
   }
 
-  /**
-   * Just sleep 1 millisecond
-   */
-  public static void sleep() {
-    sleep(1);
-  }
-
   /**
    * Sleep till time(ms)
    * @param time time(ms) till what this method sleeps
@@ -42,12 +33,4 @@ public class Helper {
       sleep(d);
     }
   }
-
-  public static void logSleep() {
-    sleep(Configuration.INSTANCE.SLEEP_LOG_TIME);
-  }
-
-  public static void chartSleep() {
-    sleep(Configuration.INSTANCE.CHARTS_UPDATE_GAP);
-  }
 }
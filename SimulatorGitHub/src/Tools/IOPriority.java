@@ -0,0 +1,28 @@
+package Tools;
+
+/**
+ * IOPriority - class of HDFS transfer. Transfers going at the same time share HDFS bandwidth in
+ * proportion to weights of their classes (see "... IO weight" in Configuration), so flush can get
+ * more bandwidth than compactions that go together with it
+ * @author ibra
+ */
+public enum IOPriority {
+  FLUSH("flush"), SMALL_COMPACTION("small compaction"), LARGE_COMPACTION("large compaction"),
+  MAJOR_COMPACTION("major compaction");
+
+  /**
+   * title of class for reports
+   */
+  private final String title;
+
+  private IOPriority(final String title) {
+    this.title = title;
+  }
+
+  /**
+   * @return title of class for reports
+   */
+  public String getTitle() {
+    return this.title;
+  }
+}
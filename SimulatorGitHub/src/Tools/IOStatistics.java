@@ -0,0 +1,155 @@
+package Tools;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * IOStatistics - statistics of HDFS streams of each IOPriority class: how many bytes they moved,
+ * how long it took and how much of that time was queueing delay - time over the time stream would
+ * take if it had whole bandwidth of HDFS for itself. The same is counted for each store, so when
+ * stores share HDFS it is seen how much IO of one store delays its neighbours
+ * @author ibra
+ */
+public class IOStatistics {
+
+  private static final Log LOG = LogFactory.getLog(IOStatistics.class.getName());
+
+  /**
+   * amount of finished streams of each class, IOPriority.ordinal() is used as index
+   */
+  private final long[] streamsCounts = new long[IOPriority.values().length];
+
+  /**
+   * bytes read and written by streams of each class
+   */
+  private final long[] bytes = new long[IOPriority.values().length];
+
+  /**
+   * total time(ms) of streams of each class from submit till finish
+   */
+  private final long[] times = new long[IOPriority.values().length];
+
+  /**
+   * total queueing delay(ms) of streams of each class
+   */
+  private final double[] delays = new double[IOPriority.values().length];
+
+  /**
+   * amount of finished streams of each store, columnFamily is used as index
+   */
+  private final long[] storeStreamsCounts;
+
+  /**
+   * bytes read and written by streams of each store
+   */
+  private final long[] storeBytes;
+
+  /**
+   * total queueing delay(ms) of streams of each store
+   */
+  private final double[] storeDelays;
+
+  /**
+   * creates empty statistics
+   * @param storesCount - amount of stores in simulation
+   */
+  public IOStatistics(final int storesCount) {
+    this.storeStreamsCounts = new long[storesCount];
+    this.storeBytes = new long[storesCount];
+    this.storeDelays = new double[storesCount];
+  }
+
+  /**
+   * adds finished stream
+   * @param priority - class of stream
+   * @param columnFamily - columnFamily of store stream belongs to
+   * @param bytes - bytes read and written by stream
+   * @param time - time(ms) from submit till finish
+   * @param idealTime - time(ms) stream would take with whole bandwidth of HDFS
+   */
+  void add(final IOPriority priority, final int columnFamily, final long bytes, final long time,
+      final double idealTime) {
+    final int i = priority.ordinal();
+    final double delay = Math.max(0, time - idealTime);
+    this.streamsCounts[i]++;
+    this.bytes[i] += bytes;
+    this.times[i] += time;
+    this.delays[i] += delay;
+
+    this.storeStreamsCounts[columnFamily]++;
+    this.storeBytes[columnFamily] += bytes;
+    this.storeDelays[columnFamily] += delay;
+  }
+
+  /**
+   * @param priority - class of streams
+   * @return amount of finished streams of class
+   */
+  public long getStreamsCount(final IOPriority priority) {
+    return this.streamsCounts[priority.ordinal()];
+  }
+
+  /**
+   * @param priority - class of streams
+   * @return bytes read and written by streams of class
+   */
+  public long getBytes(final IOPriority priority) {
+    return this.bytes[priority.ordinal()];
+  }
+
+  /**
+   * @param priority - class of streams
+   * @return bandwidth(bytes per second) streams of class achieved on average
+   */
+  public double getBandwidth(final IOPriority priority) {
+    return this.bytes[priority.ordinal()] * 1000.0 / this.times[priority.ordinal()];
+  }
+
+  /**
+   * @param priority - class of streams
+   * @return average queueing delay(ms) of stream of class
+   */
+  public double getAverageDelay(final IOPriority priority) {
+    return this.delays[priority.ordinal()] / this.streamsCounts[priority.ordinal()];
+  }
+
+  /**
+   * @param columnFamily - column family of store
+   * @return bytes read and written by streams of store
+   */
+  public long getStoreBytes(final int columnFamily) {
+    return this.storeBytes[columnFamily];
+  }
+
+  /**
+   * @param columnFamily - column family of store
+   * @return average queueing delay(ms) of stream of store
+   */
+  public double getStoreAverageDelay(final int columnFamily) {
+    return this.storeDelays[columnFamily] / this.storeStreamsCounts[columnFamily];
+  }
+
+  /**
+   * writes statistics of each class that had any streams and of each store to log
+   * @param simulatedTime - simulated time(ms), to count aggregate throughput
+   */
+  public void log(final long simulatedTime) {
+    long totalBytes = 0;
+    for (int i = 0; i < this.storeBytes.length; i++) {
+      totalBytes += this.storeBytes[i];
+      LOG.info("store " + i + ": " + this.storeStreamsCounts[i] + " streams, "
+          + this.storeBytes[i] + " bytes, average queueing delay = "
+          + this.getStoreAverageDelay(i) + " ms");
+    }
+    LOG.info("aggregate throughput = " + totalBytes * 1000.0 / simulatedTime + " bytes/s");
+
+    for (final IOPriority priority : IOPriority.values()) {
+      if (this.getStreamsCount(priority) == 0) {
+        continue;
+      }
+      LOG.info(priority.getTitle() + ": " + this.getStreamsCount(priority) + " streams, "
+          + this.getBytes(priority) + " bytes, bandwidth = " + this.getBandwidth(priority)
+          + " bytes/s, average queueing delay = " + this.getAverageDelay(priority) + " ms");
+    }
+  }
+}
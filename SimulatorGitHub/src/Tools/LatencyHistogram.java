@@ -0,0 +1,143 @@
+package Tools;
+
+import java.util.Arrays;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * LatencyHistogram - histogram of non-negative values (latencies in ms) with bounded relative
+ * error, like HdrHistogram: values below 2^SUB_BUCKET_BITS are counted exactly, larger values are
+ * split by power of two into ranges and each range is split into 2^SUB_BUCKET_BITS equal
+ * sub-buckets, so value is known with relative error below 2^-SUB_BUCKET_BITS (~3%). Recording
+ * takes O(1) and memory doesn't depend on amount of values. Value can be recorded with weight
+ * (for example time it lasted), then quantiles are weighted
+ * @author ibra
+ */
+public class LatencyHistogram {
+
+  private static final Log LOG = LogFactory.getLog(LatencyHistogram.class.getName());
+
+  /**
+   * log2 of amount of sub-buckets in each power of two range
+   */
+  private static final int SUB_BUCKET_BITS = 5;
+
+  /**
+   * amount of sub-buckets in each power of two range
+   */
+  private static final int SUB_BUCKETS = 1 << LatencyHistogram.SUB_BUCKET_BITS;
+
+  /**
+   * counts of values in each bucket, grown when larger value is recorded
+   */
+  private long[] counts;
+
+  /**
+   * amount of recorded values
+   */
+  private long totalCount;
+
+  /**
+   * maximal recorded value
+   */
+  private long max;
+
+  /**
+   * creates empty histogram
+   */
+  public LatencyHistogram() {
+    this.counts = new long[LatencyHistogram.SUB_BUCKETS];
+    this.totalCount = 0;
+    this.max = 0;
+  }
+
+  /**
+   * @param value - non-negative value
+   * @return index of bucket of value
+   */
+  private static int getIndex(final long value) {
+    if (value < LatencyHistogram.SUB_BUCKETS) {
+      return (int) value;
+    }
+    final int shift = 63 - Long.numberOfLeadingZeros(value) - LatencyHistogram.SUB_BUCKET_BITS;
+    return (shift + 1) * LatencyHistogram.SUB_BUCKETS + (int) (value >>> shift)
+        - LatencyHistogram.SUB_BUCKETS;
+  }
+
+  /**
+   * @param index - index of bucket
+   * @return the largest value that falls into bucket
+   */
+  private static long getHighestValue(final int index) {
+    if (index < LatencyHistogram.SUB_BUCKETS) {
+      return index;
+    }
+    final int shift = index / LatencyHistogram.SUB_BUCKETS - 1;
+    final long subBucket = index % LatencyHistogram.SUB_BUCKETS + LatencyHistogram.SUB_BUCKETS;
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  /**
+   * records value
+   * @param value - non-negative value
+   */
+  public void record(final long value) {
+    this.record(value, 1);
+  }
+
+  /**
+   * records value with weight, as if it was recorded count times
+   * @param value - non-negative value
+   * @param count - weight of value
+   */
+  public void record(final long value, final long count) {
+    final int index = LatencyHistogram.getIndex(value);
+    if (index >= this.counts.length) {
+      this.counts = Arrays.copyOf(this.counts, index + LatencyHistogram.SUB_BUCKETS);
+    }
+    this.counts[index] += count;
+    this.totalCount += count;
+    this.max = Math.max(this.max, value);
+  }
+
+  /**
+   * removes all recorded values
+   */
+  public void clear() {
+    Arrays.fill(this.counts, 0);
+    this.totalCount = 0;
+    this.max = 0;
+  }
+
+  /**
+   * @return amount of recorded values
+   */
+  public long getTotalCount() {
+    return this.totalCount;
+  }
+
+  /**
+   * @return maximal recorded value
+   */
+  public long getMax() {
+    return this.max;
+  }
+
+  /**
+   * @param quantile - quantile in [0, 1], for example 0.99
+   * @return value that is not less than quantile of recorded values (with relative error of
+   *         histogram), 0 if histogram is empty
+   */
+  public long getValueAtQuantile(final double quantile) {
+    final long rank = Math.max(1, (long) Math.ceil(quantile * this.totalCount));
+    long count = 0;
+    for (int i = 0; i < this.counts.length; i++) {
+      count += this.counts[i];
+      if (count >= rank) {
+        return Math.min(LatencyHistogram.getHighestValue(i), this.max);
+      }
+    }
+    return this.max;
+  }
+}
@@ -1,43 +1,149 @@
 package Tools;
 
-import java.util.Random;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import Model.Configuration;
 
 /**
- * RandomGenerator - static class, used for getting randomized values
+ * RandomGenerator - used for getting randomized values.
+ *
+ * Generator is SplitMix64: state is one long advanced by odd gamma and mixed on output, so it is
+ * cheap, has no locks and can be split into independent streams. Simulation has tree of streams
+ * split from "Random seed" in fixed order - workload, then each store and its compactor - so run
+ * is repeatable and random values drawn by one store don't shift values of the others. Generator
+ * is not thread-safe, each stream is used by one simulation thread
  * @author ibra
  */
 public class RandomGenerator {
 
   private static final Log LOG = LogFactory.getLog(RandomGenerator.class.getName());
 
-  private static final Random rand = new Random(System.currentTimeMillis());
+  /**
+   * configuration of simulation
+   */
+  private final Configuration configuration;
+
+  /**
+   * gamma of root streams - odd integer closest to 2^64 / golden ratio
+   */
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+  /**
+   * state of generator, advanced by gamma on each value
+   */
+  private long state;
+
+  /**
+   * odd increment of state, different for each split stream
+   */
+  private final long gamma;
+
+  /**
+   * creates and initializes object. Generators with the same seed give the same sequence of values
+   * @param configuration - configuration of simulation
+   * @param seed - seed of generator
+   */
+  public RandomGenerator(final Configuration configuration, final long seed) {
+    this(configuration, seed, RandomGenerator.GOLDEN_GAMMA);
+  }
+
+  /**
+   * creates split stream
+   * @param configuration - configuration of simulation
+   * @param state - initial state
+   * @param gamma - odd increment of state
+   */
+  private RandomGenerator(final Configuration configuration, final long state, final long gamma) {
+    this.configuration = configuration;
+    this.state = state;
+    this.gamma = gamma;
+  }
+
+  /**
+   * splits new stream off this one. Streams split in the same order from generators with the same
+   * seed are the same, values of new stream don't depend on how many values this stream gives later
+   * @return new independent generator
+   */
+  public RandomGenerator split() {
+    final long state = RandomGenerator.mix64(this.nextState());
+    return new RandomGenerator(this.configuration, state, RandomGenerator.mixGamma(this
+        .nextState()));
+  }
+
+  /**
+   * @return state advanced by gamma
+   */
+  private long nextState() {
+    this.state += this.gamma;
+    return this.state;
+  }
+
+  /**
+   * @return next uniformly distributed 64 bits
+   */
+  private long nextLong() {
+    return RandomGenerator.mix64(this.nextState());
+  }
+
+  /**
+   * @return bits of z mixed by variant 13 of MurmurHash3 finalizer
+   */
+  private static long mix64(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * @return odd gamma made of z, with enough bit transitions so that state changes well
+   */
+  private static long mixGamma(long z) {
+    z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+    z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    z = (z ^ (z >>> 33)) | 1L;
+    return Long.bitCount(z ^ (z >>> 1)) < 24 ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+  }
 
   /**
    * @return random column family
    */
-  public static int getNextColumnFamily() {
-    return getRandomInt((int) Configuration.INSTANCE.getCompactionAlgosCount());
+  public int getNextColumnFamily() {
+    return this.getRandomInt((int) this.configuration.getCompactionAlgosCount());
   }
 
   /**
-   * @param conf
-   * @return size of new KeyValuePairs pack
+   * @return size of new KeyValuePairs pack - KeyValues of pack have the same size, random value in
+   *         range [size-size*jitter, size+size*jitter], so mean size of pack doesn't depend on
+   *         jitter
    */
-  public static long getKeyValuePackBytesSize() {
-    return Configuration.INSTANCE.getKvsPerPut() * Configuration.INSTANCE.getKeyValueByteSize();
+  public long getKeyValuePackBytesSize() {
+    return this.configuration.getKvsPerPut()
+        * this.getRandomJitteredValue(this.configuration.getKeyValueByteSize(),
+          this.configuration.getKeyValueByteSizeJitter());
   }
 
   /**
    * @return keyValue TTL - random value in range [TTL-TTL*jitter, TTL+TTL*jitter]
    */
-  public static long getKeyValueTTL() {
-    return getRandomJitteredValue(Configuration.INSTANCE.getKeyValueTTL(),
-      Configuration.INSTANCE.getKeyValueTTLJitter());
+  public long getKeyValueTTL() {
+    return this.getRandomJitteredValue(this.configuration.getKeyValueTTL(),
+      this.configuration.getKeyValueTTLJitter());
+  }
+
+  /**
+   * analytic counterpart of getKeyValueTTL: TTL is uniformly distributed in range
+   * [TTL-TTL*jitter, TTL+TTL*jitter]
+   * @param age - age(ms) of KeyValue
+   * @return probability that KeyValue of this age survives TTL check (TTL > age)
+   */
+  public double getKeyValueTTLSurvival(final double age) {
+    final double ttl = this.configuration.getKeyValueTTL();
+    final double spread = ttl * this.configuration.getKeyValueTTLJitter();
+    if (spread == 0) {
+      return age < ttl ? 1 : 0;
+    }
+    return Math.max(0, Math.min(1, (ttl + spread - age) / (2 * spread)));
   }
 
   /**
@@ -46,20 +152,19 @@ public class RandomGenerator {
    * @return majorCompactionGap - random value in range [majorCompactionGap-majorCompactionGap*jitter, 
    *         majorCompactionGap+majorCompactionGap*jitter]
    */
-  public static long getMajorCompactionGap(final long majorCompactionGap,
+  public long getMajorCompactionGap(final long majorCompactionGap,
       final double majorCompactionJitter) {
-    return getRandomJitteredValue(majorCompactionGap, majorCompactionJitter)
-        / Configuration.INSTANCE.getxFaster();
+    return this.getRandomJitteredValue(majorCompactionGap, majorCompactionJitter);
   }
 
   /**
    * @return random value in range [base-base*jitter, base+base*jitter]
    */
-  private static long getRandomJitteredValue(final long base, final double jitter) {
-    if (getRandomBoolean()) {
-      return (long) (base * (1.0 + getRandomDouble(jitter)));
+  private long getRandomJitteredValue(final long base, final double jitter) {
+    if (this.getRandomBoolean()) {
+      return (long) (base * (1.0 + this.getRandomDouble(jitter)));
     } else {
-      return (long) (base * (1.0 - getRandomDouble(jitter)));
+      return (long) (base * (1.0 - this.getRandomDouble(jitter)));
     }
   }
 
@@ -67,30 +172,34 @@ public class RandomGenerator {
    * @param n - upper bound
    * @return random integer in range [0, n)
    */
-  public static int getRandomInt(final int n) {
-    return rand.nextInt(n);
+  public int getRandomInt(final int n) {
+    if (n <= 0) {
+      throw new IllegalArgumentException("bound must be positive: " + n);
+    }
+    // high 32 bits scaled to [0, n), bias is at most n / 2^32
+    return (int) (((this.nextLong() >>> 32) * n) >>> 32);
   }
 
   /**
    * @param bound - bound
    * @return random double in range [0, n)
    */
-  public static double getRandomDouble(final double bound) {
-    return rand.nextDouble() * bound;
+  public double getRandomDouble(final double bound) {
+    return (this.nextLong() >>> 11) * 0x1.0p-53 * bound;
   }
 
   /**
    * @return random boolean value
    */
-  private static boolean getRandomBoolean() {
-    return rand.nextBoolean();
+  private boolean getRandomBoolean() {
+    return this.nextLong() < 0;
   }
 
   /**
    * @return random long value
    */
-  private static long getRandomLong(final long bound) {
-    return (long) getRandomDouble(bound);
+  private long getRandomLong(final long bound) {
+    return (long) this.getRandomDouble(bound);
   }
 
   /**
@@ -98,8 +207,8 @@ public class RandomGenerator {
    * @param hi upper bound
    * @return random long in range [lo, hi]
    */
-  public static long getRandomLong(final long lo, final long hi) {
-    return lo + RandomGenerator.getRandomLong(hi - lo + 1);
+  public long getRandomLong(final long lo, final long hi) {
+    return lo + this.getRandomLong(hi - lo + 1);
   }
 
   /**
@@ -107,7 +216,7 @@ public class RandomGenerator {
    * @param hi upper bound
    * @return random double in range [lo, hi]
    */
-  public static double getRandomDouble(final double lo, final double hi) {
-    return lo + RandomGenerator.getRandomDouble(hi - lo);
+  public double getRandomDouble(final double lo, final double hi) {
+    return lo + this.getRandomDouble(hi - lo);
   }
-}
\ No newline at end of file
+}